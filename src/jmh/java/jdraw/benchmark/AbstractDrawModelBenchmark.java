@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModel;
+import jdraw.framework.Figure;
+
+/**
+ * Modifications of a filled draw model. Subclasses choose the model implementation and the sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public abstract class AbstractDrawModelBenchmark {
+
+    /** Number of precomputed random operations, the benchmarks cycle through them. */
+    private static final int OPERATIONS = 1 << 12;
+
+    /** The model under test. */
+    private DrawModel model;
+
+    /** All figures in the model. */
+    private Figure[] figures;
+
+    /** A figure which is not part of the model. */
+    private Figure extra;
+
+    /** Random figure positions. */
+    private int[] picks;
+
+    /** Random target indices. */
+    private int[] indices;
+
+    /** Position in picks and indices. */
+    private int cursor;
+
+    /**
+     * @return a new, empty model
+     */
+    protected abstract DrawModel createModel();
+
+    /**
+     * @return number of figures in the model
+     */
+    protected abstract int getSize();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int size = getSize();
+        figures = Drawings.randomFigures(size);
+        model = Drawings.fill(createModel(), figures);
+        extra = new Rect(0, 0, 10, 10);
+
+        Random random = new Random(Drawings.SEED);
+        picks = new int[OPERATIONS];
+        indices = new int[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            picks[i] = random.nextInt(size);
+            indices[i] = random.nextInt(size);
+        }
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (OPERATIONS - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public DrawModel addRemove() {
+        model.addFigure(extra);
+        model.removeFigure(extra);
+        return model;
+    }
+
+    @Benchmark
+    public DrawModel removeAdd() {
+        // the figure is appended again, so the size of the model does not change
+        Figure f = figures[picks[next()]];
+        model.removeFigure(f);
+        model.addFigure(f);
+        return model;
+    }
+
+    @Benchmark
+    public DrawModel setFigureIndex() {
+        int i = next();
+        model.setFigureIndex(figures[picks[i]], indices[i]);
+        return model;
+    }
+}
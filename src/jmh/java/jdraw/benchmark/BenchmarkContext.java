@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.benchmark;
+
+import javax.swing.JMenu;
+
+import jdraw.framework.DrawContext;
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawTool;
+import jdraw.framework.DrawView;
+
+/**
+ * Draw context without a user interface, used to run views and tools headless.
+ */
+public class BenchmarkContext implements DrawContext {
+
+    /** The view of this context. */
+    private final DrawView view;
+
+    /** The current tool. */
+    private DrawTool tool;
+
+    /**
+     * Creates a context for the given view and registers it with the view.
+     * @param view the view
+     */
+    public BenchmarkContext(DrawView view) {
+        this.view = view;
+        view.setDrawContext(this);
+    }
+
+    @Override
+    public DrawView getView() {
+        return view;
+    }
+
+    @Override
+    public DrawModel getModel() {
+        return view.getModel();
+    }
+
+    @Override
+    public void showStatusText(String msg) { /* no status bar. */ }
+
+    @Override
+    public void addMenu(JMenu menu) { /* no menus. */ }
+
+    @Override
+    public void removeMenu(JMenu menu) { /* no menus. */ }
+
+    @Override
+    public void addTool(DrawTool tool) { /* no tool bar. */ }
+
+    @Override
+    public DrawTool getTool() {
+        return tool;
+    }
+
+    @Override
+    public void setTool(DrawTool tool) {
+        this.tool = tool;
+    }
+
+    @Override
+    public void setDefaultTool() { /* the benchmarks drive their tools directly. */ }
+
+    @Override
+    public void showView() { /* headless. */ }
+}
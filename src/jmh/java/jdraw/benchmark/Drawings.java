@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.benchmark;
+
+import java.util.Random;
+
+import jdraw.figures.Ellipse;
+import jdraw.figures.Line;
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModel;
+import jdraw.framework.Figure;
+
+/**
+ * Creates reproducible drawings for the benchmarks. The drawings grow in area with the number of
+ * figures, so that the density of figures stays the same for all sizes.
+ */
+final class Drawings {
+
+    /** Seed of all random drawings, keeps runs comparable. */
+    static final long SEED = 20171108L;
+
+    /** Average area in square pixels per figure. */
+    private static final int AREA_PER_FIGURE = 40 * 40;
+
+    private Drawings() {
+    }
+
+    /**
+     * Returns the side length of the square area covered by a drawing of the given size.
+     * @param size number of figures
+     * @return side length in pixels
+     */
+    static int side(int size) {
+        return (int) Math.sqrt((double) size * AREA_PER_FIGURE) + 1;
+    }
+
+    /**
+     * Creates a random mix of rectangles, ellipses and lines.
+     * @param size number of figures
+     * @return the figures
+     */
+    static Figure[] randomFigures(int size) {
+        Random random = new Random(SEED);
+        int side = side(size);
+        Figure[] figures = new Figure[size];
+        for (int i = 0; i < size; i++) {
+            int x = random.nextInt(side);
+            int y = random.nextInt(side);
+            int w = 5 + random.nextInt(40);
+            int h = 5 + random.nextInt(40);
+            switch (i % 3) {
+            case 0:
+                figures[i] = new Rect(x, y, w, h);
+                break;
+            case 1:
+                figures[i] = new Ellipse(x, y, w, h);
+                break;
+            default:
+                figures[i] = new Line(x, y, x + w, y + h);
+            }
+        }
+        return figures;
+    }
+
+    /**
+     * Adds the figures to the model.
+     * @param model the model to fill
+     * @param figures the figures to add
+     * @return the model
+     */
+    static DrawModel fill(DrawModel model, Figure[] figures) {
+        model.beginUpdate();
+        for (Figure f : figures) {
+            model.addFigure(f);
+        }
+        model.endUpdate();
+        return model;
+    }
+
+    /**
+     * Creates random coordinates within the drawing, alternating x and y.
+     * @param size number of figures of the drawing
+     * @param count number of points
+     * @return x0, y0, x1, y1, ...
+     */
+    static int[] randomPoints(int size, int count) {
+        Random random = new Random(SEED + 1);
+        int side = side(size);
+        int[] points = new int[2 * count];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = random.nextInt(side);
+        }
+        return points;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.benchmark;
+
+import java.awt.Rectangle;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jdraw.figures.Group;
+import jdraw.figures.Rect;
+import jdraw.framework.Figure;
+
+/**
+ * Bounds, hit-tests and moves of nested groups. The group is a balanced tree with the given fan-out
+ * and depth, e.g. fan-out 2 and depth 12 gives 4096 rectangles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GroupBenchmark {
+
+    @Param({"2", "16"})
+    public int fanOut;
+
+    @Param({"1", "3", "6"})
+    public int depth;
+
+    /** The group under test. */
+    private Group group;
+
+    /** Point inside the group, but outside of all rectangles. */
+    private int missX, missY;
+
+    /** Direction of the next move, alternates so the group stays in place. */
+    private int step = 1;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        group = (Group) create(depth, 0);
+        Rectangle bounds = group.getBounds();
+        missX = bounds.x + bounds.width - 1;
+        missY = bounds.y + 1;
+    }
+
+    /**
+     * Creates a subtree whose rectangles are laid out on a diagonal.
+     * @param level remaining levels
+     * @param offset index of the first rectangle in the subtree
+     */
+    private Figure create(int level, int offset) {
+        if (level == 0) {
+            return new Rect(offset * 10, offset * 10, 8, 8);
+        }
+
+        int leaves = (int) Math.pow(fanOut, level - 1);
+        LinkedList<Figure> parts = new LinkedList<>();
+        for (int i = 0; i < fanOut; i++) {
+            parts.add(create(level - 1, offset + i * leaves));
+        }
+        return new Group(parts);
+    }
+
+    @Benchmark
+    public Rectangle getBounds() {
+        return group.getBounds();
+    }
+
+    @Benchmark
+    public boolean containsMiss() {
+        return group.contains(missX, missY);
+    }
+
+    @Benchmark
+    public Group move() {
+        step = -step;
+        group.move(step, step);
+        return group;
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+
+import jdraw.framework.DrawModel;
+import jdraw.std.IndexedDrawModel;
+
+/**
+ * Model operations on IndexedDrawModel for up to one million figures.
+ */
+public class IndexedDrawModelBenchmark extends AbstractDrawModelBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Override
+    protected DrawModel createModel() {
+        return new IndexedDrawModel();
+    }
+
+    @Override
+    protected int getSize() {
+        return size;
+    }
+}
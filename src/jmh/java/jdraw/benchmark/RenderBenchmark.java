@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jdraw.std.IndexedDrawModel;
+import jdraw.std.StdDrawView;
+
+/**
+ * Painting of the view into an off-screen image, once for a full screen and once for a small damaged
+ * region as repainted after a figure changes or the overlay moves. With the tile cache, the figures are
+ * rendered once and copied afterwards.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class RenderBenchmark {
+
+    /** Size of the off-screen image. */
+    private static final int WIDTH = 1280, HEIGHT = 1024;
+
+    /** Size of the damaged region. */
+    private static final int DAMAGE = 64;
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean tileCache;
+
+    /** The view under test. */
+    private StdDrawView view;
+
+    /** Target of the painting. */
+    private BufferedImage image;
+
+    /** Graphics of the image. */
+    private Graphics2D g;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        view = new StdDrawView(Drawings.fill(new IndexedDrawModel(), Drawings.randomFigures(size)));
+        new BenchmarkContext(view);
+        view.setSize(WIDTH, HEIGHT);
+        view.setTileCacheEnabled(tileCache);
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        g = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintScreen() {
+        g.setClip(0, 0, WIDTH, HEIGHT);
+        view.paintComponent(g);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage paintDamage() {
+        g.setClip(WIDTH / 2, HEIGHT / 2, DAMAGE, DAMAGE);
+        view.paintComponent(g);
+        return image;
+    }
+}
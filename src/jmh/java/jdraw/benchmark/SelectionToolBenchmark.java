@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.benchmark;
+
+import java.awt.event.MouseEvent;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jdraw.framework.DrawModel;
+import jdraw.framework.Figure;
+import jdraw.std.IndexedDrawModel;
+import jdraw.std.StdDrawView;
+import jdraw.std.StdSelectionTool;
+
+/**
+ * Hit-testing: clicks of the selection tool at random positions and plain point queries on the model.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class SelectionToolBenchmark {
+
+    /** Number of precomputed click positions. */
+    private static final int CLICKS = 1 << 12;
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    /** The model under test. */
+    private DrawModel model;
+
+    /** The view the tool works on. */
+    private StdDrawView view;
+
+    /** The tool under test. */
+    private StdSelectionTool tool;
+
+    /** Click positions, x0, y0, x1, y1, ... */
+    private int[] points;
+
+    /** Mouse events matching the click positions. */
+    private MouseEvent[] events;
+
+    /** Position in points and events. */
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = Drawings.fill(new IndexedDrawModel(), Drawings.randomFigures(size));
+        view = new StdDrawView(model);
+        BenchmarkContext context = new BenchmarkContext(view);
+        tool = new StdSelectionTool(view, context);
+
+        points = Drawings.randomPoints(size, CLICKS);
+        events = new MouseEvent[CLICKS];
+        for (int i = 0; i < CLICKS; i++) {
+            events[i] = new MouseEvent(view, MouseEvent.MOUSE_PRESSED, 0, 0,
+                    points[2 * i], points[2 * i + 1], 1, false);
+        }
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (CLICKS - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public int click() {
+        int i = next();
+        int x = points[2 * i];
+        int y = points[2 * i + 1];
+        tool.mouseDown(x, y, events[i]);
+        tool.mouseUp(x, y, events[i]);
+        return view.getSelection().size();
+    }
+
+    @Benchmark
+    public Figure figureAt() {
+        int i = next();
+        return model.getFigureAt(points[2 * i], points[2 * i + 1]);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.benchmark;
+
+import java.awt.Point;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jdraw.framework.PointConstrainer;
+import jdraw.grid.SnapGrid;
+import jdraw.std.IndexedDrawModel;
+import jdraw.std.StdDrawView;
+
+/**
+ * Snapping of random points to the handles of the figures in the drawing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class SnapGridBenchmark {
+
+    /** Number of precomputed points. */
+    private static final int POINTS = 1 << 10;
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    /** The grid under test. */
+    private PointConstrainer grid;
+
+    /** Points to constrain. */
+    private Point[] points;
+
+    /** Position in points. */
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StdDrawView view = new StdDrawView(Drawings.fill(new IndexedDrawModel(), Drawings.randomFigures(size)));
+        new BenchmarkContext(view);
+        grid = new SnapGrid(view);
+        grid.activate();
+
+        int[] coordinates = Drawings.randomPoints(size, POINTS);
+        points = new Point[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            points[i] = new Point(coordinates[2 * i], coordinates[2 * i + 1]);
+        }
+    }
+
+    @Benchmark
+    public Point constrainPoint() {
+        cursor = (cursor + 1) & (POINTS - 1);
+        return grid.constrainPoint(points[cursor]);
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+
+import jdraw.framework.DrawModel;
+import jdraw.std.StdDrawModel;
+
+/**
+ * Model operations on the list based StdDrawModel. Filling the list is quadratic, so the sizes stop
+ * where the setup would dominate the run.
+ */
+public class StdDrawModelBenchmark extends AbstractDrawModelBenchmark {
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    @Override
+    protected DrawModel createModel() {
+        return new StdDrawModel();
+    }
+
+    @Override
+    protected int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jdraw.framework.DrawModel;
+import jdraw.io.TileRenderer;
+import jdraw.std.IndexedDrawModel;
+
+/**
+ * Off-screen rendering of a whole drawing into a single image, as done for the export, with a varying
+ * number of threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class TileRendererBenchmark {
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    /** The drawing to render. */
+    private DrawModel model;
+
+    /** Pool with the given number of threads. */
+    private ForkJoinPool pool;
+
+    /** The renderer under test. */
+    private TileRenderer renderer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = Drawings.fill(new IndexedDrawModel(), Drawings.randomFigures(size));
+        pool = new ForkJoinPool(threads);
+        renderer = new TileRenderer(pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public BufferedImage render() {
+        return renderer.render(model);
+    }
+}
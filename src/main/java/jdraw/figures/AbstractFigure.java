@@ -1,36 +1,187 @@
 package jdraw.figures;
 
+import java.awt.Rectangle;
+import java.util.Collections;
+import java.util.List;
+
 import jdraw.framework.Figure;
 import jdraw.framework.FigureEvent;
+import jdraw.framework.FigureHandle;
 import jdraw.framework.FigureListener;
 
-import java.util.ArrayList;
-
 abstract class AbstractFigure implements Figure
 {
     /**
-     * List of all FigureListeners registered on this rect
+     * Identifier of the serialized form of the original class, keeps drawings saved with Java
+     * serialization readable after the listener fields became transient.
+     */
+    private static final long serialVersionUID = 5408808736299737095L;
+
+    /**
+     * Shared empty listener array
+     */
+    private static final FigureListener[] NO_LISTENERS = new FigureListener[0];
+
+    /**
+     * All FigureListeners registered on this figure. The array is never modified, it is replaced
+     * whenever a listener is added or removed. Notification can therefore iterate over it without
+     * copying, even if listeners (de)register themselves while being notified.
+     */
+    private transient FigureListener[] figureListeners = NO_LISTENERS;
+
+    /**
+     * The event sent to the listeners. Its only state is the source, so one instance per figure is enough.
      */
-    private ArrayList<FigureListener> figureListeners = new ArrayList<>();
+    private transient FigureEvent event;
+
+    /**
+     * The handles of this figure, created on first use. Handles compute their location from the figure,
+     * so the same instances serve for the whole life of the figure.
+     */
+    private transient List<FigureHandle> handles;
+
+    /**
+     * Creates the handles of this figure. Called once, on the first call of getHandles.
+     * @return the handles
+     */
+    protected abstract List<FigureHandle> createHandles();
+
+    @Override
+    public List<FigureHandle> getHandles() {
+        if (handles == null) {
+            handles = Collections.unmodifiableList(createHandles());
+        }
+        return handles;
+    }
+
+    /**
+     * Writes the locations of the eight handles of a box, in the order north west, north, north east,
+     * east, south east, south, south west and west.
+     * @param x left
+     * @param y top
+     * @param w width
+     * @param h height
+     * @param locations the buffer, see Figure.getHandleLocations
+     * @return the number of handles, 8
+     */
+    protected static int boxHandleLocations(int x, int y, int w, int h, int[] locations) {
+        putLocation(locations, 0, x, y);
+        putLocation(locations, 1, x + w / 2, y);
+        putLocation(locations, 2, x + w, y);
+        putLocation(locations, 3, x + w, y + h / 2);
+        putLocation(locations, 4, x + w, y + h);
+        putLocation(locations, 5, x + w / 2, y + h);
+        putLocation(locations, 6, x, y + h);
+        putLocation(locations, 7, x, y + h / 2);
+        return 8;
+    }
+
+    /**
+     * Writes the locations of the four handles at the middle of the sides of a box, in the order north,
+     * east, south and west.
+     * @param x left
+     * @param y top
+     * @param w width
+     * @param h height
+     * @param locations the buffer, see Figure.getHandleLocations
+     * @return the number of handles, 4
+     */
+    protected static int sideHandleLocations(int x, int y, int w, int h, int[] locations) {
+        putLocation(locations, 0, x + w / 2, y);
+        putLocation(locations, 1, x + w, y + h / 2);
+        putLocation(locations, 2, x + w / 2, y + h);
+        putLocation(locations, 3, x, y + h / 2);
+        return 4;
+    }
+
+    /**
+     * Stores the location of the i-th handle if it fits into the buffer.
+     */
+    protected static void putLocation(int[] locations, int i, int x, int y) {
+        if (2 * i + 1 < locations.length) {
+            locations[2 * i] = x;
+            locations[2 * i + 1] = y;
+        }
+    }
+
+    /**
+     * Stores the smallest integer rectangle enclosing the given area into rv, the same way
+     * java.awt.geom.RectangularShape.getBounds does.
+     * @param rv the rectangle to store the bounds into
+     * @param x left
+     * @param y top
+     * @param w width
+     * @param h height
+     * @return rv
+     */
+    protected static Rectangle enclose(Rectangle rv, double x, double y, double w, double h) {
+        if (w < 0 || h < 0) {
+            rv.setBounds(0, 0, 0, 0);
+            return rv;
+        }
+
+        double x1 = Math.floor(x);
+        double y1 = Math.floor(y);
+        double x2 = Math.ceil(x + w);
+        double y2 = Math.ceil(y + h);
+        rv.setBounds((int) x1, (int) y1, (int) (x2 - x1), (int) (y2 - y1));
+        return rv;
+    }
 
     @Override
     public void addFigureListener(FigureListener listener) {
-        figureListeners.add(listener);
+        if (listener == null) {
+            return;
+        }
+
+        FigureListener[] current = getFigureListeners();
+        FigureListener[] changed = new FigureListener[current.length + 1];
+        System.arraycopy(current, 0, changed, 0, current.length);
+        changed[current.length] = listener;
+        figureListeners = changed;
     }
 
     @Override
     public void removeFigureListener(FigureListener listener) {
-        figureListeners.remove(listener);
+        FigureListener[] current = getFigureListeners();
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                FigureListener[] changed = new FigureListener[current.length - 1];
+                System.arraycopy(current, 0, changed, 0, i);
+                System.arraycopy(current, i + 1, changed, i, current.length - i - 1);
+                figureListeners = changed.length == 0 ? NO_LISTENERS : changed;
+                return;
+            }
+        }
     }
 
     /**
      * Notifies all FigureListeners
      */
     protected void notifyAllListeners() {
-        // Copy listeners to avoid concurrent modification
-        ArrayList<FigureListener> listenersCopy = new ArrayList<>(figureListeners);
+        FigureListener[] listeners = getFigureListeners();
+        if (listeners.length == 0) {
+            return;
+        }
 
-        listenersCopy.forEach(figureListener -> figureListener.figureChanged(new FigureEvent(this)));
+        if (event == null) {
+            event = new FigureEvent(this);
+        }
+
+        for (FigureListener listener : listeners) {
+            listener.figureChanged(event);
+        }
+    }
+
+    /**
+     * Returns the current listener array. After deserialization the transient field is not initialized.
+     * @return the registered listeners
+     */
+    private FigureListener[] getFigureListeners() {
+        if (figureListeners == null) {
+            figureListeners = NO_LISTENERS;
+        }
+        return figureListeners;
     }
 
     @Override
@@ -26,6 +26,12 @@ import java.util.List;
  *
  */
 public class Ellipse extends AbstractFigure {
+    /**
+     * Identifier of the serialized form of the original class, keeps drawings saved with Java
+     * serialization readable although methods were added since.
+     */
+    private static final long serialVersionUID = 6479806817768656668L;
+
     /**
      * Use the java.awt.Ellipse2D in order to save/reuse code.
      */
@@ -101,13 +107,24 @@ public class Ellipse extends AbstractFigure {
         return ellipse2D.getBounds();
     }
 
+    @Override
+    public Rectangle getBounds(Rectangle rv) {
+        return enclose(rv, ellipse2D.getX(), ellipse2D.getY(), ellipse2D.getWidth(), ellipse2D.getHeight());
+    }
+
+    @Override
+    public int getHandleLocations(int[] locations) {
+        Rectangle bounds = getBounds();
+        return sideHandleLocations(bounds.x, bounds.y, bounds.width, bounds.height, locations);
+    }
+
     /**
      * Returns a list of handles for this Ellipse2D.
      * @return all handles that are attached to the targeted figure.
      * @see Figure#getHandles()
      */
     @Override
-    public List<FigureHandle> getHandles() {
+    protected List<FigureHandle> createHandles() {
         List<FigureHandle> handles = new ArrayList<>();
 
         handles.add(new NorthHandle(this));
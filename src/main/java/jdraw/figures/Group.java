@@ -16,35 +16,189 @@ import jdraw.framework.FigureListener;
 import java.awt.Graphics;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.function.Consumer;
 
 public class Group extends AbstractFigure implements FigureGroup {
+    /**
+     * Identifier of the serialized form of the original class, keeps drawings saved with Java
+     * serialization readable although methods were added since.
+     */
+    private static final long serialVersionUID = -2677379173292870496L;
 
     /**
      * All figures this group consists of
      */
     LinkedList<Figure> figureParts = new LinkedList<>();
 
+    /**
+     * Union of the bounds of all parts, null if a part changed since it was computed. The rectangle is
+     * replaced instead of modified, so a group can be drawn by several threads at once, e.g. by the tiles
+     * of a TileRenderer, which may compute it concurrently.
+     */
+    private transient volatile Rectangle bounds;
+
+    /**
+     * Hierarchy over the bounds of the parts for culling and hit-testing, null if a part changed since it
+     * was built. Immutable like bounds.
+     */
+    private transient volatile PartHierarchy hierarchy;
+
+    /**
+     * Number of operations of this group on its parts in progress, see changeParts
+     */
+    private transient int changingParts;
+
+    /**
+     * Registered on all parts, invalidates the cached bounds when a part changes and passes the change on,
+     * so enclosing groups invalidate theirs as well. Changes made by the group itself are passed on by the
+     * group once the operation is done.
+     */
+    private transient FigureListener partListener;
+
     public Group(List<Figure> parts) {
         figureParts = (LinkedList<Figure>) parts;
+        listenToParts();
     }
 
+    /**
+     * Registers the part listener on all parts, also to attach the group again after releaseParts, e.g.
+     * when ungrouping is undone. The parts may have changed in between, so the caches are dropped.
+     */
+    public void listenToParts() {
+        if (partListener != null) {
+            return;
+        }
+
+        bounds = null;
+        hierarchy = null;
+        partListener = e -> {
+            if (changingParts == 0) {
+                bounds = null;
+                hierarchy = null;
+                notifyAllListeners();
+            }
+        };
+        figureParts.forEach(figure -> figure.addFigureListener(partListener));
+    }
+
+    /**
+     * Removes the part listener from all parts, so that they neither notify nor keep a reference to this
+     * group. Called when the group is ungrouped and its parts are used on their own; the group must not be
+     * used again before listenToParts is called.
+     */
+    public void releaseParts() {
+        if (partListener != null) {
+            figureParts.forEach(figure -> figure.removeFigureListener(partListener));
+            partListener = null;
+        }
+    }
+
+    /**
+     * The listener is transient, register it again after deserialization.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        listenToParts();
+    }
+
+    /**
+     * Draws the parts intersecting the clip of g, in their order.
+     */
     @Override
     public void draw(Graphics g) {
-        figureParts.forEach(figure -> figure.draw(g));
+        Rectangle clip = g.getClipBounds();
+        if (clip == null || clip.contains(validBounds())) {
+            figureParts.forEach(figure -> figure.draw(g));
+            return;
+        }
+
+        PartHierarchy h = hierarchy();
+        for (int i : h.intersecting(clip.x, clip.y, clip.x + clip.width, clip.y + clip.height)) {
+            h.get(i).draw(g);
+        }
+    }
+
+    /**
+     * Applies a change to all parts. The notifications of the parts are not passed on, the caller notifies
+     * the listeners of this group once afterwards. This way an operation on a group results in a single
+     * notification, independent of the number of parts and the nesting of groups.
+     * @param change the change of a single part
+     */
+    private void changeParts(Consumer<Figure> change) {
+        changingParts++;
+        try {
+            figureParts.forEach(change);
+        } finally {
+            changingParts--;
+        }
     }
 
     @Override
     public void move(int dx, int dy) {
-        figureParts.forEach(figure -> figure.move(dx, dy));
+        if (dx == 0 && dy == 0) {
+            return;
+        }
+
+        changeParts(figure -> figure.move(dx, dy));
+        // moving the caches is cheaper than recomputing them
+        Rectangle b = bounds;
+        if (b != null) {
+            Rectangle moved = new Rectangle(b);
+            moved.translate(dx, dy);
+            bounds = moved;
+        }
+        PartHierarchy h = hierarchy;
+        if (h != null) {
+            hierarchy = h.translate(dx, dy);
+        }
+        notifyAllListeners();
     }
 
+    /**
+     * A group contains a point if one of its parts does.
+     */
     @Override
     public boolean contains(int x, int y) {
-        return getBounds().contains(new Point(x, y));
+        return hierarchy().anyContains(x, y);
+    }
+
+    /**
+     * Finds the parts containing the given point. Nested groups are returned as a whole.
+     * @param x x-coordinate of the point
+     * @param y y-coordinate of the point
+     * @return the parts containing the point, front-to-back
+     */
+    public List<Figure> getPartsAt(int x, int y) {
+        PartHierarchy h = hierarchy();
+        int[] candidates = h.intersecting(x, y, x, y);
+        List<Figure> parts = new ArrayList<>(candidates.length);
+        for (int i = candidates.length - 1; i >= 0; i--) {
+            Figure part = h.get(candidates[i]);
+            if (part.contains(x, y)) {
+                parts.add(part);
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Finds the parts whose bounds intersect the given area. Nested groups are returned as a whole.
+     * @param area the area, treated as closed like the queries of the model
+     * @return the parts intersecting the area, back-to-front
+     */
+    public List<Figure> getPartsIntersecting(Rectangle area) {
+        PartHierarchy h = hierarchy();
+        int[] candidates = h.intersecting(area.x, area.y, area.x + area.width, area.y + area.height);
+        List<Figure> parts = new ArrayList<>(candidates.length);
+        for (int i : candidates) {
+            parts.add(h.get(i));
+        }
+        return parts;
     }
 
     @Override
@@ -54,10 +208,57 @@ public class Group extends AbstractFigure implements FigureGroup {
 
     @Override
     public Rectangle getBounds() {
-        Rectangle bounds = new Rectangle(figureParts.getFirst().getBounds());
-        figureParts.forEach(figure -> bounds.add(figure.getBounds()));
+        return new Rectangle(validBounds());
+    }
+
+    @Override
+    public Rectangle getBounds(Rectangle rv) {
+        rv.setBounds(validBounds());
+        return rv;
+    }
+
+    /**
+     * Returns the cached bounds, computing them first if a part changed. Must not be modified.
+     * @return union of the bounds of all parts
+     */
+    private Rectangle validBounds() {
+        Rectangle b = bounds;
+        if (b == null) {
+            Rectangle union = new Rectangle();
+            Rectangle part = new Rectangle();
+            boolean first = true;
+            for (Figure figure : figureParts) {
+                figure.getBounds(part);
+                if (first) {
+                    union.setBounds(part);
+                    first = false;
+                } else {
+                    union.add(part);
+                }
+            }
+            bounds = union;
+            b = union;
+        }
+        return b;
+    }
 
-        return bounds;
+    /**
+     * Returns the hierarchy over the parts, building it first if a part changed.
+     * @return the hierarchy
+     */
+    private PartHierarchy hierarchy() {
+        PartHierarchy h = hierarchy;
+        if (h == null) {
+            h = new PartHierarchy(figureParts);
+            hierarchy = h;
+        }
+        return h;
+    }
+
+    @Override
+    public int getHandleLocations(int[] locations) {
+        Rectangle b = validBounds();
+        return boxHandleLocations(b.x, b.y, b.width, b.height, locations);
     }
 
     /**
@@ -66,7 +267,7 @@ public class Group extends AbstractFigure implements FigureGroup {
      * @see jdraw.framework.Figure#getHandles()
      */
     @Override
-    public List<FigureHandle> getHandles() {
+    protected List<FigureHandle> createHandles() {
         List<FigureHandle> handles = new ArrayList<>();
 
         handles.add(new NorthWestHandle(this));
@@ -13,6 +13,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Line extends AbstractFigure {
+    /**
+     * Identifier of the serialized form of the original class, keeps drawings saved with Java
+     * serialization readable although methods were added since.
+     */
+    private static final long serialVersionUID = 1220889713785240095L;
 
     private Line2D line;
 
@@ -88,13 +93,22 @@ public class Line extends AbstractFigure {
         return line.getBounds();
     }
 
+    @Override
+    public Rectangle getBounds(Rectangle rv) {
+        double x1 = line.getX1();
+        double y1 = line.getY1();
+        double x2 = line.getX2();
+        double y2 = line.getY2();
+        return enclose(rv, Math.min(x1, x2), Math.min(y1, y2), Math.abs(x2 - x1), Math.abs(y2 - y1));
+    }
+
     /**
      * Returns a list of handles for this Line.
      * @return all handles that are attached to the targeted figure.
      * @see Figure#getHandles()
      */
     @Override
-    public List<FigureHandle> getHandles() {
+    protected List<FigureHandle> createHandles() {
         List<FigureHandle> handles = new ArrayList<>();
 
         handles.add(new LineStartHandle(this));
@@ -103,18 +117,39 @@ public class Line extends AbstractFigure {
         return handles;
     }
 
+    @Override
+    public int getHandleLocations(int[] locations) {
+        putLocation(locations, 0, (int) line.getX1(), (int) line.getY1());
+        putLocation(locations, 1, (int) line.getX2(), (int) line.getY2());
+        return 2;
+    }
+
     public Point getP1() {
-        return new Point(
-            (int) line.getP1().getX(),
-            (int) line.getP1().getY()
-        );
+        return getP1(new Point());
+    }
+
+    /**
+     * Stores the start point into rv.
+     * @param rv the point to store the start point into
+     * @return rv
+     */
+    public Point getP1(Point rv) {
+        rv.setLocation((int) line.getX1(), (int) line.getY1());
+        return rv;
     }
 
     public Point getP2() {
-        return new Point(
-            (int) line.getP2().getX(),
-            (int) line.getP2().getY()
-        );
+        return getP2(new Point());
+    }
+
+    /**
+     * Stores the end point into rv.
+     * @param rv the point to store the end point into
+     * @return rv
+     */
+    public Point getP2(Point rv) {
+        rv.setLocation((int) line.getX2(), (int) line.getY2());
+        return rv;
     }
 
     @Override
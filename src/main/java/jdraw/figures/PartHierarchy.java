@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.figures;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.Collection;
+
+import jdraw.framework.Figure;
+
+/**
+ * Bounding volume hierarchy over the parts of a group. Each node covers the bounds of a range of parts,
+ * so drawing and hit-testing only descend into the nodes overlapping the clip or containing the point.
+ *
+ * The hierarchy is built once from the bounds of the parts at that time and is immutable afterwards, so
+ * it can be queried by several threads at once. Moving all parts together yields a copy with an offset
+ * which shares the nodes; any other change of a part requires a new hierarchy. Bounds are treated as
+ * closed intervals like in the spatial index of the model, so lines with a width or height of 0 are found
+ * as well.
+ *
+ * @author Pascal Thormeier
+ */
+final class PartHierarchy {
+
+    /**
+     * Maximum number of parts in a leaf
+     */
+    private static final int LEAF_SIZE = 4;
+
+    /**
+     * The parts in the order of the group, back-to-front
+     */
+    private final Figure[] parts;
+
+    /**
+     * Indices of the parts, ordered such that each leaf covers a contiguous range
+     */
+    private final int[] order;
+
+    /**
+     * Closed bounds of the nodes, relative to the offset. Node 0 is the root, the left child of an inner
+     * node directly follows it.
+     */
+    private final int[] x1, y1, x2, y2;
+
+    /**
+     * Index of the right child for inner nodes, -1 for leaves
+     */
+    private final int[] right;
+
+    /**
+     * Range [start, end) of order covered by a node
+     */
+    private final int[] start, end;
+
+    /**
+     * Number of nodes, used while building only
+     */
+    private int nodeCount;
+
+    /**
+     * Distance the parts moved since the hierarchy was built
+     */
+    private final int offsetX, offsetY;
+
+    /**
+     * Builds the hierarchy over the current bounds of the parts.
+     * @param figures the parts, back-to-front
+     */
+    PartHierarchy(Collection<Figure> figures) {
+        parts = figures.toArray(new Figure[0]);
+        int n = parts.length;
+        order = new int[n];
+
+        // bounds and centers of the parts, used while building only
+        int[] bounds = new int[4 * n];
+        long[] keys = new long[n];
+        Rectangle r = new Rectangle();
+        for (int i = 0; i < n; i++) {
+            parts[i].getBounds(r);
+            bounds[4 * i] = r.x;
+            bounds[4 * i + 1] = r.y;
+            bounds[4 * i + 2] = r.x + r.width;
+            bounds[4 * i + 3] = r.y + r.height;
+            order[i] = i;
+        }
+
+        // splitting at the median leaves at least two parts per leaf, so there are less than n nodes
+        int capacity = Math.max(1, n);
+        x1 = new int[capacity];
+        y1 = new int[capacity];
+        x2 = new int[capacity];
+        y2 = new int[capacity];
+        right = new int[capacity];
+        start = new int[capacity];
+        end = new int[capacity];
+        build(0, n, bounds, keys);
+        offsetX = 0;
+        offsetY = 0;
+    }
+
+    /**
+     * Creates a moved copy sharing the nodes of another hierarchy.
+     */
+    private PartHierarchy(PartHierarchy other, int offsetX, int offsetY) {
+        parts = other.parts;
+        order = other.order;
+        x1 = other.x1;
+        y1 = other.y1;
+        x2 = other.x2;
+        y2 = other.y2;
+        right = other.right;
+        start = other.start;
+        end = other.end;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+    }
+
+    /**
+     * Builds the subtree over order[from, to) by splitting at the median along the longer side.
+     * @return index of the subtree's root
+     */
+    private int build(int from, int to, int[] bounds, long[] keys) {
+        int node = nodeCount++;
+        start[node] = from;
+        end[node] = to;
+
+        int bx1 = Integer.MAX_VALUE, by1 = Integer.MAX_VALUE, bx2 = Integer.MIN_VALUE, by2 = Integer.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            int p = 4 * order[i];
+            bx1 = Math.min(bx1, bounds[p]);
+            by1 = Math.min(by1, bounds[p + 1]);
+            bx2 = Math.max(bx2, bounds[p + 2]);
+            by2 = Math.max(by2, bounds[p + 3]);
+        }
+        x1[node] = bx1;
+        y1[node] = by1;
+        x2[node] = bx2;
+        y2[node] = by2;
+
+        if (to - from <= LEAF_SIZE) {
+            right[node] = -1;
+            return node;
+        }
+
+        // sort the range by the center along the longer side, packed with the part index
+        int axis = (long) bx2 - bx1 >= (long) by2 - by1 ? 0 : 1;
+        for (int i = from; i < to; i++) {
+            int p = 4 * order[i];
+            long center = ((long) bounds[p + axis] + bounds[p + axis + 2]) >> 1;
+            keys[i] = (center << 32) | order[i];
+        }
+        Arrays.sort(keys, from, to);
+        for (int i = from; i < to; i++) {
+            order[i] = (int) keys[i];
+        }
+
+        int middle = (from + to) >>> 1;
+        build(from, middle, bounds, keys);
+        right[node] = build(middle, to, bounds, keys);
+        return node;
+    }
+
+    /**
+     * @return the hierarchy after all parts moved by the given distance
+     */
+    PartHierarchy translate(int dx, int dy) {
+        return new PartHierarchy(this, offsetX + dx, offsetY + dy);
+    }
+
+    /**
+     * @return number of parts
+     */
+    int size() {
+        return parts.length;
+    }
+
+    /**
+     * @param i index in the order of the group
+     * @return the part at that index
+     */
+    Figure get(int i) {
+        return parts[i];
+    }
+
+    /**
+     * Checks whether any part contains the given point.
+     */
+    boolean anyContains(int x, int y) {
+        return anyContains(0, x - offsetX, y - offsetY, x, y);
+    }
+
+    private boolean anyContains(int node, int qx, int qy, int x, int y) {
+        if (qx < x1[node] || qx > x2[node] || qy < y1[node] || qy > y2[node]) {
+            return false;
+        }
+        if (right[node] < 0) {
+            for (int i = start[node]; i < end[node]; i++) {
+                if (parts[order[i]].contains(x, y)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return anyContains(node + 1, qx, qy, x, y) || anyContains(right[node], qx, qy, x, y);
+    }
+
+    /**
+     * Finds the parts whose bounds intersect the given closed area.
+     * @param ax1 left
+     * @param ay1 top
+     * @param ax2 right
+     * @param ay2 bottom
+     * @return indices of the parts in ascending order, i.e. back-to-front
+     */
+    int[] intersecting(int ax1, int ay1, int ax2, int ay2) {
+        int[] result = new int[Math.min(parts.length, 16)];
+        int count = 0;
+
+        // explicit stack, its depth is bounded by the height of the balanced tree
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        Rectangle r = new Rectangle();
+        ax1 -= offsetX;
+        ax2 -= offsetX;
+        ay1 -= offsetY;
+        ay2 -= offsetY;
+        while (top > 0) {
+            int node = stack[--top];
+            if (x1[node] > ax2 || ax1 > x2[node] || y1[node] > ay2 || ay1 > y2[node]) {
+                continue;
+            }
+
+            if (right[node] >= 0) {
+                stack[top++] = right[node];
+                stack[top++] = node + 1;
+                continue;
+            }
+            if (x1[node] >= ax1 && x2[node] <= ax2 && y1[node] >= ay1 && y2[node] <= ay2) {
+                // leaf lies completely inside the area
+                for (int i = start[node]; i < end[node]; i++) {
+                    result = append(result, count++, order[i]);
+                }
+                continue;
+            }
+            for (int i = start[node]; i < end[node]; i++) {
+                parts[order[i]].getBounds(r);
+                int px = r.x - offsetX;
+                int py = r.y - offsetY;
+                if (px <= ax2 && ax1 <= px + r.width && py <= ay2 && ay1 <= py + r.height) {
+                    result = append(result, count++, order[i]);
+                }
+            }
+        }
+
+        int[] sorted = Arrays.copyOf(result, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static int[] append(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, 2 * array.length);
+        }
+        array[index] = value;
+        return array;
+    }
+}
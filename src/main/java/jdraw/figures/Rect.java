@@ -30,6 +30,12 @@ import jdraw.framework.FigureHandle;
  *
  */
 public class Rect extends AbstractFigure {
+    /**
+     * Identifier of the serialized form of the original class, keeps drawings saved with Java
+     * serialization readable although methods were added since.
+     */
+    private static final long serialVersionUID = -3469540802355322858L;
+
     /**
      * Use the java.awt.Rectangle in order to save/reuse code.
      */
@@ -99,13 +105,24 @@ public class Rect extends AbstractFigure {
         return rectangle.getBounds();
     }
 
+    @Override
+    public Rectangle getBounds(Rectangle rv) {
+        rv.setBounds(rectangle);
+        return rv;
+    }
+
+    @Override
+    public int getHandleLocations(int[] locations) {
+        return boxHandleLocations(rectangle.x, rectangle.y, rectangle.width, rectangle.height, locations);
+    }
+
     /**
      * Returns a list of 8 handles for this Rectangle.
      * @return all handles that are attached to the targeted figure.
      * @see jdraw.framework.Figure#getHandles()
      */
     @Override
-    public List<FigureHandle> getHandles() {
+    protected List<FigureHandle> createHandles() {
         List<FigureHandle> handles = new ArrayList<>();
 
         handles.add(new NorthWestHandle(this));
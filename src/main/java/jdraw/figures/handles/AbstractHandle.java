@@ -33,6 +33,16 @@ public abstract class AbstractHandle implements FigureHandle
      */
     protected Point opposingPoint;
 
+    /**
+     * Reused for the location of this handle, see contains and draw
+     */
+    private final Point location = new Point();
+
+    /**
+     * Reused for the bounds of the owner, see getOwnerBounds
+     */
+    private final Rectangle ownerBounds = new Rectangle();
+
     public AbstractHandle(Figure owner) {
         this.owner = owner;
     }
@@ -43,45 +53,47 @@ public abstract class AbstractHandle implements FigureHandle
     }
 
     @Override
-    public void draw(Graphics g) {
-        Point loc = getTopLeftPoint();
-        g.setColor(Color.WHITE); g.fillRect(loc.x, loc.y, handleSize, handleSize);
-        g.setColor(Color.BLACK); g.drawRect(loc.x, loc.y, handleSize, handleSize);
+    public Point getLocation() {
+        return getLocation(new Point());
     }
 
+    /**
+     * Stores the location of this handle into rv. Implementations must not allocate, the method is
+     * called for every hit test and repaint of the handle.
+     * @param rv the point to store the location into
+     * @return rv
+     */
     @Override
-    public Cursor getCursor() {
-        return Cursor.getPredefinedCursor(Cursor.NW_RESIZE_CURSOR);
-    }
-
-    @Override
-    public boolean contains(int x, int y) {
-        return new Rectangle(
-            (int) getTopLeftPoint().getX(),
-            (int) getTopLeftPoint().getY(),
-            handleSize,
-            handleSize
-        ).contains(x, y);
-    }
+    public abstract Point getLocation(Point rv);
 
     /**
-     * Returns the top left point of this handle
-     * @return coords as Point
+     * Returns the current bounds of the owner in a rectangle which is reused by every call.
+     * @return the owner's bounds, only valid until the next call
      */
-    private Point getTopLeftPoint() {
-        Point loc = getLocation();
+    protected Rectangle getOwnerBounds() {
+        return owner.getBounds(ownerBounds);
+    }
 
-        return new Point(loc.x - handleSize / 2, loc.y - handleSize / 2);
+    @Override
+    public void draw(Graphics g) {
+        Point loc = getLocation(location);
+        int x = loc.x - handleSize / 2;
+        int y = loc.y - handleSize / 2;
+        g.setColor(Color.WHITE); g.fillRect(x, y, handleSize, handleSize);
+        g.setColor(Color.BLACK); g.drawRect(x, y, handleSize, handleSize);
     }
 
-    /**
-     * Returns the bottom right point of this handle
-     * @return coords as Point
-     */
-    private Point getBottomRightPoint() {
-        Point loc = getLocation();
+    @Override
+    public Cursor getCursor() {
+        return Cursor.getPredefinedCursor(Cursor.NW_RESIZE_CURSOR);
+    }
 
-        return new Point(loc.x + handleSize / 2, loc.y + handleSize / 2);
+    @Override
+    public boolean contains(int x, int y) {
+        Point loc = getLocation(location);
+        int left = loc.x - handleSize / 2;
+        int top = loc.y - handleSize / 2;
+        return x >= left && x < left + handleSize && y >= top && y < top + handleSize;
     }
 
     /**
@@ -13,10 +13,10 @@ public class NorthEastHandle extends AbstractCardinalDirectionHandle {
     }
 
     @Override
-    public Point getLocation() {
-        Rectangle bounds = getOwner().getBounds();
-
-        return new Point(bounds.x + bounds.width, bounds.y);
+    public Point getLocation(Point rv) {
+        Rectangle bounds = getOwnerBounds();
+        rv.setLocation(bounds.x + bounds.width, bounds.y);
+        return rv;
     }
 
     @Override
@@ -13,10 +13,10 @@ public class NorthWestHandle extends AbstractCardinalDirectionHandle {
     }
 
     @Override
-    public Point getLocation() {
-        Rectangle bounds = getOwner().getBounds();
-
-        return new Point(bounds.x, bounds.y);
+    public Point getLocation(Point rv) {
+        Rectangle bounds = getOwnerBounds();
+        rv.setLocation(bounds.x, bounds.y);
+        return rv;
     }
 
     @Override
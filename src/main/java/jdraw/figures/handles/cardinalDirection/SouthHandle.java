@@ -12,10 +12,10 @@ public class SouthHandle extends AbstractCardinalDirectionHandle {
     }
 
     @Override
-    public Point getLocation() {
-        Rectangle bounds = getOwner().getBounds();
-
-        return new Point(bounds.x + bounds.width / 2, bounds.y + bounds.height);
+    public Point getLocation(Point rv) {
+        Rectangle bounds = getOwnerBounds();
+        rv.setLocation(bounds.x + bounds.width / 2, bounds.y + bounds.height);
+        return rv;
     }
 
     @Override
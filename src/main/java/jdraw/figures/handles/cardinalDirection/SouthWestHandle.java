@@ -13,10 +13,10 @@ public class SouthWestHandle extends AbstractCardinalDirectionHandle {
     }
 
     @Override
-    public Point getLocation() {
-        Rectangle bounds = getOwner().getBounds();
-
-        return new Point(bounds.x, bounds.y + bounds.height);
+    public Point getLocation(Point rv) {
+        Rectangle bounds = getOwnerBounds();
+        rv.setLocation(bounds.x, bounds.y + bounds.height);
+        return rv;
     }
 
     @Override
@@ -14,10 +14,10 @@ public class WestHandle extends AbstractCardinalDirectionHandle {
     }
 
     @Override
-    public Point getLocation() {
-        Rectangle bounds = getOwner().getBounds();
-
-        return new Point(bounds.x, bounds.y + bounds.height / 2);
+    public Point getLocation(Point rv) {
+        Rectangle bounds = getOwnerBounds();
+        rv.setLocation(bounds.x, bounds.y + bounds.height / 2);
+        return rv;
     }
 
     @Override
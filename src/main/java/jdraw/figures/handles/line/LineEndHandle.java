@@ -13,10 +13,10 @@ public class LineEndHandle extends AbstractHandle {
     }
 
     @Override
-    public Point getLocation() {
+    public Point getLocation(Point rv) {
         Line owner = (Line) getOwner();
 
-        return owner.getP2();
+        return owner.getP2(rv);
     }
 
     @Override
@@ -12,10 +12,10 @@ public class LineStartHandle extends AbstractHandle {
     }
 
     @Override
-    public Point getLocation() {
+    public Point getLocation(Point rv) {
         Line owner = (Line) getOwner();
 
-        return owner.getP1();
+        return owner.getP1(rv);
     }
 
     @Override
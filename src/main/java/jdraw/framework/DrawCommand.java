@@ -28,5 +28,26 @@ public interface DrawCommand extends Serializable {
      * Undoes the action performed by execute.
      */
     void undo();
+
+    /**
+     * Returns an estimate of the memory in bytes retained by this command while it is stored in the
+     * command history. Objects which are still part of the drawing are not counted. The default covers
+     * a command with a few fields.
+     * @return estimated retained size in bytes
+     */
+    default long estimateSize() {
+        return 32;
+    }
+
+    /**
+     * Tries to absorb the given command, which was added directly after this one within the same script,
+     * e.g. to combine the many small steps of a mouse drag. If the command is absorbed, this command
+     * afterwards has the effect of both and the given command is dropped.
+     * @param next the command added after this one, already executed
+     * @return whether the command was absorbed
+     */
+    default boolean mergeWith(DrawCommand next) {
+        return false;
+    }
 }
 
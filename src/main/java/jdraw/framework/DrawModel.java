@@ -5,6 +5,14 @@
 
 package jdraw.framework;
 
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
 /**
  * The class DrawModel represents the model of a drawing, i.e.
  * all figures stored in a graphic. Every draw view refers to a
@@ -47,6 +55,20 @@ public interface DrawModel {
      */
     Iterable<Figure> getFigures();
 
+    /**
+     * Returns the figures in their current back-to-front order. Unlike getFigures, the result is not
+     * affected by later changes of the model, which makes it suitable e.g. to undo removeAllFigures.
+     * The default implementation copies the figures; models may share structure with the snapshot
+     * instead.
+     *
+     * @return the current figures, back-to-front
+     */
+    default Iterable<Figure> getFigureSnapshot() {
+        List<Figure> snapshot = new ArrayList<>();
+        getFigures().forEach(snapshot::add);
+        return snapshot;
+    }
+
     /**
      * Adds the specified model listener to receive model events from this draw
      * model.
@@ -97,4 +119,125 @@ public interface DrawModel {
      */
     void setFigureIndex(Figure f, int index) throws IllegalArgumentException, IndexOutOfBoundsException;
 
+    /**
+     * Returns the index of a given figure, i.e. its position in the
+     * back-to-front order. The default implementation scans all figures.
+     *
+     * @param f the figure to look for
+     * @return the index of the figure or -1 if it is not contained in the model
+     */
+    default int indexOf(Figure f) {
+        int index = 0;
+        for (Figure g : getFigures()) {
+            if (g == f) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the indices of several figures at once. The default
+     * implementation scans all figures a single time.
+     *
+     * @param figures the figures to look for
+     * @return the index of each figure, -1 for figures not contained in the model
+     */
+    default int[] indicesOf(List<Figure> figures) {
+        Map<Figure, Integer> positions = new IdentityHashMap<>();
+        for (int i = 0; i < figures.size(); i++) {
+            positions.put(figures.get(i), i);
+        }
+
+        int[] indices = new int[figures.size()];
+        Arrays.fill(indices, -1);
+        int index = 0;
+        for (Figure g : getFigures()) {
+            Integer position = positions.get(g);
+            if (position != null) {
+                indices[position] = index;
+            }
+            index++;
+        }
+        return indices;
+    }
+
+    /**
+     * Starts a batch of changes. While a batch is open, additions and changes
+     * of figures are not reported one by one. Instead, they are collected and
+     * reported as one <code>DRAWING_CHANGED</code> event carrying all affected
+     * figures and the union of their regions (see
+     * {@link DrawModelEvent#getChangedFigures()}). If only a single figure was
+     * affected, the usual event for that figure is sent. Removals are always
+     * reported immediately.
+     *
+     * Calls may be nested. The collected changes are reported with every call
+     * of {@link #endUpdate()}, so an outer batch which spans a whole mouse
+     * interaction does not delay the feedback of the inner ones.
+     *
+     * The default implementation does not batch anything.
+     */
+    default void beginUpdate() {
+    }
+
+    /**
+     * Ends a batch of changes started with {@link #beginUpdate()} and reports
+     * the changes collected so far.
+     */
+    default void endUpdate() {
+    }
+
+    /**
+     * Returns all figures whose bounds intersect or touch the given rectangle.
+     * The figures are returned in the same back-to-front order as
+     * {@link #getFigures()}. Models holding a spatial index answer this query
+     * without visiting every figure.
+     *
+     * @param r the area of interest
+     * @return figures in the area, back-to-front
+     */
+    default List<Figure> getFiguresIntersecting(Rectangle r) {
+        List<Figure> result = new ArrayList<>();
+        for (Figure f : getFigures()) {
+            Rectangle b = f.getBounds();
+            if (b.x <= r.x + r.width && r.x <= b.x + b.width
+                    && b.y <= r.y + r.height && r.y <= b.y + b.height) {
+                result.add(f);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all figures which contain the given point, i.e. for which
+     * {@link Figure#contains(int, int)} holds. The front-most figure comes
+     * first.
+     *
+     * @param x x-coordinate of the point
+     * @param y y-coordinate of the point
+     * @return figures at the given point, front-to-back
+     */
+    default List<Figure> getFiguresAt(int x, int y) {
+        LinkedList<Figure> result = new LinkedList<>();
+        for (Figure f : getFigures()) {
+            if (f.contains(x, y)) {
+                result.addFirst(f);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the front-most figure containing the given point.
+     *
+     * @param x x-coordinate of the point
+     * @param y y-coordinate of the point
+     * @return the top-most figure at the point or <code>null</code>
+     */
+    default Figure getFigureAt(int x, int y) {
+        List<Figure> figures = getFiguresAt(x, y);
+        return figures.isEmpty() ? null : figures.get(0);
+    }
+
 }
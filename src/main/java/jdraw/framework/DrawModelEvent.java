@@ -5,7 +5,10 @@
 
 package jdraw.framework;
 
+import java.awt.Rectangle;
+import java.util.Collections;
 import java.util.EventObject;
+import java.util.Set;
 
 /**
  * An event which indicates that a draw model has changed. This event is fired
@@ -48,7 +51,9 @@ public class DrawModelEvent extends EventObject {
         /**
          * This event indicates that more than one figure has changed, e.g.\
          * that the order of the figures has changed. The view has to redraw the
-         * whole scene. However, no figure was added or removed.
+         * whole scene, unless the event specifies a region. Figures may have
+         * been added during a batch of changes (see
+         * {@link DrawModel#beginUpdate()}), but no figure was removed.
          */
         DRAWING_CHANGED
     }
@@ -66,6 +71,19 @@ public class DrawModelEvent extends EventObject {
      */
     private Type type;
 
+    /**
+     * The area of the drawing affected by the change. For a changed figure
+     * this is the union of its bounds before and after the change. A value
+     * of <code>null</code> means that the whole drawing may be affected.
+     */
+    private Rectangle region;
+
+    /**
+     * The figures added or changed by a batch of changes. For events which
+     * report on a single figure, this set contains just that figure.
+     */
+    private Set<Figure> changedFigures;
+
     /**
      * Constructs a DrawModelEvent object with the specified model.
      *
@@ -74,9 +92,40 @@ public class DrawModelEvent extends EventObject {
      * @param type the event type
      */
     public DrawModelEvent(DrawModel source, Figure figure, Type type) {
+        this(source, figure, type, null);
+    }
+
+    /**
+     * Constructs a DrawModelEvent object with the specified model and the
+     * area of the drawing which is affected by the change.
+     *
+     * @param source model which changed
+     * @param figure the affected figure
+     * @param type the event type
+     * @param region the affected area or <code>null</code> if unknown
+     */
+    public DrawModelEvent(DrawModel source, Figure figure, Type type, Rectangle region) {
         super(source);
         this.figure = figure;
         this.type = type;
+        this.region = region;
+        this.changedFigures = figure == null ? Collections.emptySet() : Collections.singleton(figure);
+    }
+
+    /**
+     * Constructs a <code>DRAWING_CHANGED</code> event which reports a batch of
+     * changes at once.
+     *
+     * @param source model which changed
+     * @param changedFigures the figures added or changed during the batch
+     * @param region the union of all affected areas or <code>null</code> if
+     *            unknown
+     */
+    public DrawModelEvent(DrawModel source, Set<Figure> changedFigures, Rectangle region) {
+        super(source);
+        this.type = Type.DRAWING_CHANGED;
+        this.region = region;
+        this.changedFigures = Collections.unmodifiableSet(changedFigures);
     }
 
     /**
@@ -107,4 +156,26 @@ public class DrawModelEvent extends EventObject {
     public Type getType() {
         return type;
     }
+
+    /**
+     * Returns the area of the drawing which has to be redrawn because of this
+     * change. Listeners must not modify the returned rectangle.
+     *
+     * @return the affected area or <code>null</code> if the whole drawing may
+     *         be affected
+     */
+    public Rectangle getRegion() {
+        return region;
+    }
+
+    /**
+     * Returns all figures which were added or changed. For a batch of changes
+     * these are all figures touched during the batch, otherwise it is the
+     * figure returned by {@link #getFigure()}.
+     *
+     * @return the added or changed figures, never <code>null</code>
+     */
+    public Set<Figure> getChangedFigures() {
+        return changedFigures;
+    }
 }
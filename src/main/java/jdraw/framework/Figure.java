@@ -69,6 +69,19 @@ public interface Figure extends Serializable, Cloneable {
      */
     Rectangle getBounds();
 
+    /**
+     * Stores the bounds of the figure into the given rectangle and returns it.
+     * Lets callers which query the bounds often reuse a rectangle instead of
+     * allocating a new one per call.
+     *
+     * @param rv the rectangle to store the bounds into
+     * @return rv
+     */
+    default Rectangle getBounds(Rectangle rv) {
+        rv.setBounds(getBounds());
+        return rv;
+    }
+
     /**
      * Returns a list of handles. Handles are used to manipulate a figure. If
      * the figure does not support handles, <tt>null</tt> may be returned as
@@ -79,6 +92,31 @@ public interface Figure extends Serializable, Cloneable {
      */
     List<FigureHandle> getHandles();
 
+    /**
+     * Writes the locations of the figure's handles into a buffer, in the
+     * order of getHandles. The x and y coordinate of the i-th handle are
+     * stored at index 2i and 2i+1. If the buffer is too small, only the
+     * locations that fit are written.
+     *
+     * @param locations the buffer to write the coordinates to
+     * @return the number of handles of the figure
+     */
+    default int getHandleLocations(int[] locations) {
+        List<FigureHandle> handles = getHandles();
+        if (handles == null) {
+            return 0;
+        }
+
+        Point p = new Point();
+        int n = Math.min(handles.size(), locations.length / 2);
+        for (int i = 0; i < n; i++) {
+            handles.get(i).getLocation(p);
+            locations[2 * i] = p.x;
+            locations[2 * i + 1] = p.y;
+        }
+        return handles.size();
+    }
+
     /**
      * Adds the specified figure listener to receive figure events from this
      * figure. If listener is null, no exception is thrown and no action is
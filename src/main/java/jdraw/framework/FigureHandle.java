@@ -37,6 +37,17 @@ public interface FigureHandle {
      */
     Point getLocation();
 
+    /**
+     * Stores the location of this handle into the given point and returns it.
+     *
+     * @param rv the point to store the location into
+     * @return rv
+     */
+    default Point getLocation(Point rv) {
+        rv.setLocation(getLocation());
+        return rv;
+    }
+
     /**
      * Draws this handle.
      *
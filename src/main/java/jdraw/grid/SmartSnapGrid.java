@@ -0,0 +1,408 @@
+package jdraw.grid;
+
+import jdraw.figures.Ellipse;
+import jdraw.figures.Group;
+import jdraw.figures.Line;
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.DrawModelListener;
+import jdraw.framework.DrawView;
+import jdraw.framework.Figure;
+import jdraw.framework.PointConstrainer;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Snaps to the nearest of several kinds of targets around the mouse: the handles and centers of figures
+ * and points on their edges. If none of these is within the snap radius, the point is aligned with the
+ * handles and centers of figures nearby, horizontally and vertically independent of each other.
+ *
+ * Handles and centers are kept in a SnapPointIndex, edges are found through the spatial queries of the
+ * model. Every constrained point gets a time budget: the kinds of targets are searched from the cheapest
+ * on and the search stops as soon as the budget is used up or the mouse is exactly on a target, returning
+ * the best target found so far.
+ */
+public class SmartSnapGrid implements PointConstrainer {
+
+    /**
+     * Default time budget for constraining a point, in nanoseconds
+     */
+    public static final long DEFAULT_BUDGET = 1_000_000L;
+
+    /**
+     * Value of getGuideX and getGuideY if the last point was not aligned in that direction
+     */
+    public static final int NO_GUIDE = Integer.MIN_VALUE;
+
+    /**
+     * Number of figures checked for edges between two looks at the clock
+     */
+    private static final int CLOCK_INTERVAL = 16;
+
+    /**
+     * The view whose model provides the targets
+     */
+    private DrawView view;
+
+    /**
+     * The currently adding figure
+     */
+    private Figure currentFigure = null;
+
+    /**
+     * Radius around a target in which the point should snap
+     */
+    private int snapRadius = 15;
+
+    /**
+     * Maximum distance of figures providing alignment guides
+     */
+    private int guideRange = 400;
+
+    /**
+     * Time budget for constraining a point, in nanoseconds
+     */
+    private long budget = DEFAULT_BUDGET;
+
+    /**
+     * Handle locations and centers of all figures, only maintained while this grid is active
+     */
+    private SnapPointIndex index;
+
+    /**
+     * Keeps track of the current figure and keeps the index up to date
+     */
+    private final DrawModelListener listener = this::modelChanged;
+
+    /**
+     * Best target of the current search and its squared distance to the mouse
+     */
+    private int bestX, bestY;
+    private long bestDistance;
+
+    /**
+     * Feedback for the view: the target the last point snapped to, null if it did not snap, and the
+     * coordinates of the guides it was aligned with, NO_GUIDE if none
+     */
+    private Point snapTarget;
+    private int guideX = NO_GUIDE, guideY = NO_GUIDE;
+
+    /**
+     * Reused for bounds and line end points
+     */
+    private final Rectangle bounds = new Rectangle();
+    private final Point segmentStart = new Point();
+    private final Point segmentEnd = new Point();
+
+    public SmartSnapGrid(DrawView view) {
+        this.view = view;
+    }
+
+    /**
+     * Sets the time budget for constraining a single point.
+     * @param nanos the budget in nanoseconds
+     */
+    public void setBudget(long nanos) {
+        budget = nanos;
+    }
+
+    /**
+     * @return the handle, center or edge point the last constrained point snapped to, null if it did not
+     *         snap to one
+     */
+    public Point getSnapTarget() {
+        return snapTarget == null ? null : new Point(snapTarget);
+    }
+
+    /**
+     * @return x-coordinate of the vertical guide the last constrained point was aligned with, NO_GUIDE if
+     *         it was not aligned horizontally
+     */
+    public int getGuideX() {
+        return guideX;
+    }
+
+    /**
+     * @return y-coordinate of the horizontal guide the last constrained point was aligned with, NO_GUIDE
+     *         if it was not aligned vertically
+     */
+    public int getGuideY() {
+        return guideY;
+    }
+
+    @Override
+    public Point constrainPoint(Point p) {
+        snapTarget = null;
+        guideX = NO_GUIDE;
+        guideY = NO_GUIDE;
+        if (index == null) {
+            return p;
+        }
+
+        long start = System.nanoTime();
+        List<Figure> selection = view.getSelection();
+        Predicate<Figure> excluded = figure -> figure == currentFigure || selection.contains(figure);
+
+        long reach = (long) snapRadius * snapRadius;
+        bestDistance = reach + 1;
+
+        Point point = index.nearest(p.x, p.y, snapRadius, excluded);
+        if (point != null) {
+            offer(point.x, point.y, p);
+        }
+        if (bestDistance > 0 && !expired(start)) {
+            snapToEdges(p, excluded, start);
+        }
+        if (bestDistance <= reach) {
+            snapTarget = new Point(bestX, bestY);
+            return new Point(bestX, bestY);
+        }
+
+        if (expired(start)) {
+            return p;
+        }
+        return snapToGuides(p, excluded);
+    }
+
+    /**
+     * @param start System.nanoTime when constraining the current point started
+     * @return true if the time budget is used up
+     */
+    private boolean expired(long start) {
+        return System.nanoTime() - start >= budget;
+    }
+
+    @Override
+    public int getStepX(boolean right) {
+        return 0;
+    }
+
+    @Override
+    public int getStepY(boolean down) {
+        return 0;
+    }
+
+    @Override
+    public void activate() {
+        index = new SnapPointIndex(4 * snapRadius, this::snapLocations);
+        for (Figure figure : view.getModel().getFigures()) {
+            index.update(figure);
+        }
+        view.getModel().addModelChangeListener(listener);
+    }
+
+    @Override
+    public void deactivate() {
+        view.getModel().removeModelChangeListener(listener);
+        index = null;
+        currentFigure = null;
+        snapTarget = null;
+        guideX = NO_GUIDE;
+        guideY = NO_GUIDE;
+    }
+
+    @Override
+    public void mouseDown() {
+
+    }
+
+    @Override
+    public void mouseUp() {
+
+    }
+
+    /**
+     * Looks for the nearest point on the edges of the figures around p, see snapToEdge.
+     * @param p mouse position
+     * @param excluded figures to ignore
+     * @param start System.nanoTime when constraining the current point started
+     */
+    private void snapToEdges(Point p, Predicate<Figure> excluded, long start) {
+        Rectangle area = new Rectangle(p.x - snapRadius, p.y - snapRadius, 2 * snapRadius, 2 * snapRadius);
+
+        int checked = 0;
+        for (Figure figure : view.getModel().getFiguresIntersecting(area)) {
+            if (++checked % CLOCK_INTERVAL == 0 && expired(start)) {
+                return;
+            }
+            if (excluded.test(figure)) {
+                continue;
+            }
+
+            snapToEdge(figure, area, p);
+            if (bestDistance == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Offers the point on the edge of a figure which is nearest to p. Lines snap to their segment,
+     * rectangles to their outline, ellipses to their curve and groups to the edges of their parts near p.
+     * Other figures are skipped, as the outline of their bounds is not necessarily drawn.
+     * @param figure the figure
+     * @param area the search area around p
+     * @param p mouse position
+     */
+    private void snapToEdge(Figure figure, Rectangle area, Point p) {
+        if (figure instanceof Line) {
+            Line line = (Line) figure;
+            snapToSegment(line.getP1(segmentStart), line.getP2(segmentEnd), p);
+        } else if (figure instanceof Rect) {
+            snapToOutline(figure.getBounds(bounds), p);
+        } else if (figure instanceof Ellipse) {
+            snapToEllipse(figure.getBounds(bounds), p);
+        } else if (figure instanceof Group) {
+            for (Figure part : ((Group) figure).getPartsIntersecting(area)) {
+                snapToEdge(part, area, p);
+            }
+        }
+    }
+
+    /**
+     * Offers the point of the segment from a to b which is nearest to p.
+     */
+    private void snapToSegment(Point a, Point b, Point p) {
+        long dx = b.x - a.x;
+        long dy = b.y - a.y;
+        long length = dx * dx + dy * dy;
+        if (length == 0) {
+            offer(a.x, a.y, p);
+            return;
+        }
+
+        double t = ((p.x - a.x) * dx + (p.y - a.y) * dy) / (double) length;
+        t = Math.max(0, Math.min(1, t));
+        offer((int) Math.round(a.x + t * dx), (int) Math.round(a.y + t * dy), p);
+    }
+
+    /**
+     * Offers the point of the outline of r which is nearest to p.
+     */
+    private void snapToOutline(Rectangle r, Point p) {
+        int x1 = r.x;
+        int y1 = r.y;
+        int x2 = r.x + r.width;
+        int y2 = r.y + r.height;
+        int x = Math.max(x1, Math.min(x2, p.x));
+        int y = Math.max(y1, Math.min(y2, p.y));
+
+        if (x == p.x && y == p.y) {
+            // inside, move to the nearest side
+            int left = p.x - x1;
+            int right = x2 - p.x;
+            int top = p.y - y1;
+            int bottom = y2 - p.y;
+            int min = Math.min(Math.min(left, right), Math.min(top, bottom));
+            if (min == left) {
+                x = x1;
+            } else if (min == right) {
+                x = x2;
+            } else if (min == top) {
+                y = y1;
+            } else {
+                y = y2;
+            }
+        }
+        offer(x, y, p);
+    }
+
+    /**
+     * Offers the point of the ellipse inscribed in r which is nearest to p. Works on the quarter of the
+     * ellipse p lies in and refines the parameter of the nearest point a few times, each step moving it
+     * along the circle of curvature; three steps are exact to well below a pixel.
+     */
+    private void snapToEllipse(Rectangle r, Point p) {
+        double a = r.width / 2.0;
+        double b = r.height / 2.0;
+        double cx = r.x + a;
+        double cy = r.y + b;
+        if (a == 0 || b == 0) {
+            // flat ellipses are drawn as a line
+            segmentStart.setLocation(r.x, r.y);
+            segmentEnd.setLocation(r.x + r.width, r.y + r.height);
+            snapToSegment(segmentStart, segmentEnd, p);
+            return;
+        }
+
+        double px = Math.abs(p.x - cx);
+        double py = Math.abs(p.y - cy);
+        double tx = Math.sqrt(0.5);
+        double ty = tx;
+        for (int i = 0; i < 3; i++) {
+            double x = a * tx;
+            double y = b * ty;
+            double ex = (a * a - b * b) * tx * tx * tx / a;
+            double ey = (b * b - a * a) * ty * ty * ty / b;
+            double q = Math.hypot(px - ex, py - ey);
+            if (q == 0) {
+                break;
+            }
+            double scale = Math.hypot(x - ex, y - ey) / q;
+            tx = Math.max(0, Math.min(1, ((px - ex) * scale + ex) / a));
+            ty = Math.max(0, Math.min(1, ((py - ey) * scale + ey) / b));
+            double t = Math.hypot(tx, ty);
+            tx /= t;
+            ty /= t;
+        }
+        offer((int) Math.round(cx + Math.copySign(a * tx, p.x - cx)),
+                (int) Math.round(cy + Math.copySign(b * ty, p.y - cy)), p);
+    }
+
+    /**
+     * Aligns p with the handles and centers of the figures within the guide range.
+     * @param p mouse position
+     * @param excluded figures to ignore
+     * @return the aligned point, p if there is nothing to align with
+     */
+    private Point snapToGuides(Point p, Predicate<Figure> excluded) {
+        int x = index.nearestX(p.x, p.y - guideRange, p.y + guideRange, snapRadius, excluded);
+        int y = index.nearestY(p.y, p.x - guideRange, p.x + guideRange, snapRadius, excluded);
+        guideX = x;
+        guideY = y;
+        if (x == NO_GUIDE && y == NO_GUIDE) {
+            return p;
+        }
+        return new Point(x == NO_GUIDE ? p.x : x, y == NO_GUIDE ? p.y : y);
+    }
+
+    /**
+     * Records (x, y) as the best target if it is nearer to p than the best one so far. Ties keep the
+     * earlier target, so handles and centers win over edges.
+     */
+    private void offer(int x, int y, Point p) {
+        long dx = x - p.x;
+        long dy = y - p.y;
+        long distance = dx * dx + dy * dy;
+        if (distance < bestDistance) {
+            bestX = x;
+            bestY = y;
+            bestDistance = distance;
+        }
+    }
+
+    /**
+     * Writes the handle locations of a figure followed by its center, see SnapPointIndex.
+     */
+    private int snapLocations(Figure figure, int[] locations) {
+        int count = figure.getHandleLocations(locations);
+        if (2 * count + 1 < locations.length) {
+            Rectangle b = figure.getBounds(bounds);
+            locations[2 * count] = b.x + b.width / 2;
+            locations[2 * count + 1] = b.y + b.height / 2;
+        }
+        return count + 1;
+    }
+
+    /**
+     * Updates the index after a change of the model
+     * @param e the model event
+     */
+    private void modelChanged(DrawModelEvent e) {
+        currentFigure = e.getFigure();
+        index.modelChanged(e);
+    }
+}
@@ -7,7 +7,7 @@ import jdraw.framework.Figure;
 import jdraw.framework.PointConstrainer;
 
 import java.awt.Point;
-import java.util.ArrayList;
+import java.util.List;
 
 public class SnapGrid implements PointConstrainer {
 
@@ -26,10 +26,18 @@ public class SnapGrid implements PointConstrainer {
      */
     private int snapRadius = 15;
 
+    /**
+     * Handle locations of all figures, only maintained while this grid is active
+     */
+    private SnapPointIndex index;
+
+    /**
+     * Keeps track of the current figure and keeps the index up to date
+     */
+    private final DrawModelListener listener = this::modelChanged;
+
     public SnapGrid(DrawView view) {
         this.view = view;
-
-        view.getModel().addModelChangeListener(e -> currentFigure = e.getFigure());
     }
 
     @Override
@@ -55,11 +63,21 @@ public class SnapGrid implements PointConstrainer {
 
     @Override
     public void activate() {
+        index = new SnapPointIndex(4 * snapRadius);
+        for (Figure figure : view.getModel().getFigures()) {
+            index.update(figure);
+        }
+        view.getModel().addModelChangeListener(listener);
+
         System.out.println("Activated grid: Snap");
     }
 
     @Override
     public void deactivate() {
+        view.getModel().removeModelChangeListener(listener);
+        index = null;
+        currentFigure = null;
+
         System.out.println("Deactivated grid: Snap");
     }
 
@@ -79,32 +97,20 @@ public class SnapGrid implements PointConstrainer {
      * @return The point of a snapped handle
      */
     private Point getSnappedPoint(Point p) {
-        ArrayList<Point> handlePoints = new ArrayList<>();
-
-        view.getModel().getFigures().forEach(figure -> {
-            if (!view.getSelection().contains(figure) && figure != currentFigure) {
-                figure.getHandles().forEach(figureHandle -> {
-                    handlePoints.add(figureHandle.getLocation());
-                });
-            }
-        });
-
-        for (Point handlePoint : handlePoints) {
-            if (shouldSnap(handlePoint, p)) {
-                return handlePoint;
-            }
+        if (index == null) {
+            return null;
         }
 
-        return null;
+        List<Figure> selection = view.getSelection();
+        return index.nearest(p.x, p.y, snapRadius, figure -> figure == currentFigure || selection.contains(figure));
     }
 
     /**
-     * Checks if a given Point p is within a given radius around a handlePoint
-     * @param handlePoint
-     * @param p
-     * @return
+     * Updates the index after a change of the model
+     * @param e the model event
      */
-    private boolean shouldSnap(Point handlePoint, Point p) {
-        return handlePoint.distance(p) <= snapRadius;
+    private void modelChanged(DrawModelEvent e) {
+        currentFigure = e.getFigure();
+        index.modelChanged(e);
     }
 }
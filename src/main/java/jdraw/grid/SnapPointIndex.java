@@ -0,0 +1,386 @@
+package jdraw.grid;
+
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.Figure;
+
+import java.awt.Point;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Uniform grid over snap locations of figures, e.g. the locations of their handles. Each location is
+ * stored in the cell containing it, so a query for the nearest location within a radius only looks at
+ * the few cells around the query point, independent of the number of figures.
+ *
+ * The cells are kept in a hash table keyed by the cell coordinates; only cells containing at least one
+ * location exist. Queries and updates of figures whose number of handles does not change do not allocate.
+ */
+final class SnapPointIndex {
+
+    /**
+     * Initial number of buckets, a power of two
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * A cell of the grid with the locations falling into it
+     */
+    private static final class Cell {
+        /** Cell coordinates */
+        final int cx, cy;
+        /** Next cell in the same bucket */
+        Cell next;
+        /** Owners of the locations */
+        Figure[] owners = new Figure[4];
+        /** Locations as x/y pairs */
+        int[] locations = new int[8];
+        /** Number of locations */
+        int size;
+
+        Cell(int cx, int cy) {
+            this.cx = cx;
+            this.cy = cy;
+        }
+    }
+
+    /**
+     * Width and height of a cell
+     */
+    private final int cellSize;
+
+    /**
+     * Writes the snap locations of a figure into a buffer, with the contract of Figure.getHandleLocations
+     */
+    private final ToIntBiFunction<Figure, int[]> locator;
+
+    /**
+     * Hash table of the cells, chained by Cell.next
+     */
+    private Cell[] buckets = new Cell[INITIAL_CAPACITY];
+
+    /**
+     * Number of cells
+     */
+    private int cellCount;
+
+    /**
+     * Indexed locations per figure as x/y pairs, used to find the entries again on removal
+     */
+    private final Map<Figure, int[]> figures = new IdentityHashMap<>();
+
+    /**
+     * Buffer for the current handle locations of a figure
+     */
+    private int[] buffer = new int[16];
+
+    /**
+     * Creates an index over the handle locations of figures.
+     * @param cellSize width and height of a cell; queries are fastest if it is about the query radius
+     */
+    SnapPointIndex(int cellSize) {
+        this(cellSize, Figure::getHandleLocations);
+    }
+
+    /**
+     * @param cellSize width and height of a cell; queries are fastest if it is about the query radius
+     * @param locator writes the snap locations of a figure into a buffer and returns their number, like
+     *            Figure.getHandleLocations
+     */
+    SnapPointIndex(int cellSize, ToIntBiFunction<Figure, int[]> locator) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cell size must be positive");
+        }
+        this.cellSize = cellSize;
+        this.locator = locator;
+    }
+
+    /**
+     * Keeps the index up to date after a change of the model.
+     * @param e the model event
+     */
+    void modelChanged(DrawModelEvent e) {
+        switch (e.getType()) {
+        case FIGURE_REMOVED:
+            remove(e.getFigure());
+            break;
+        case DRAWING_CLEARED:
+            clear();
+            break;
+        default:
+            // added or changed figures, for batches all of them
+            for (Figure figure : e.getChangedFigures()) {
+                update(figure);
+            }
+        }
+    }
+
+    /**
+     * Indexes the current locations of a figure, replacing the locations indexed before.
+     * @param f the figure
+     */
+    void update(Figure f) {
+        int count = locator.applyAsInt(f, buffer);
+        if (2 * count > buffer.length) {
+            buffer = new int[2 * count];
+            locator.applyAsInt(f, buffer);
+        }
+
+        int[] indexed = figures.get(f);
+        if (indexed != null && indexed.length == 2 * count) {
+            if (sameLocations(indexed, buffer)) {
+                return;
+            }
+            removeLocations(f, indexed);
+        } else {
+            if (indexed != null) {
+                removeLocations(f, indexed);
+            }
+            indexed = new int[2 * count];
+            figures.put(f, indexed);
+        }
+
+        System.arraycopy(buffer, 0, indexed, 0, indexed.length);
+        for (int i = 0; i < indexed.length; i += 2) {
+            insert(f, indexed[i], indexed[i + 1]);
+        }
+    }
+
+    /**
+     * Removes the locations of a figure. Does nothing if the figure is not indexed.
+     * @param f the figure
+     */
+    void remove(Figure f) {
+        int[] indexed = figures.remove(f);
+        if (indexed != null) {
+            removeLocations(f, indexed);
+        }
+    }
+
+    /**
+     * Removes all locations.
+     */
+    void clear() {
+        figures.clear();
+        buckets = new Cell[INITIAL_CAPACITY];
+        cellCount = 0;
+    }
+
+    /**
+     * @return number of indexed figures
+     */
+    int size() {
+        return figures.size();
+    }
+
+    /**
+     * Finds the location nearest to (x, y) within the given radius.
+     * @param x x-coordinate of the query point
+     * @param y y-coordinate of the query point
+     * @param radius maximum distance
+     * @param excluded owners whose locations are ignored
+     * @return the nearest location or null if there is none within the radius
+     */
+    Point nearest(int x, int y, int radius, Predicate<Figure> excluded) {
+        long best = (long) radius * radius;
+        boolean found = false;
+        int bestX = 0;
+        int bestY = 0;
+
+        int cx1 = Math.floorDiv(x - radius, cellSize);
+        int cx2 = Math.floorDiv(x + radius, cellSize);
+        int cy1 = Math.floorDiv(y - radius, cellSize);
+        int cy2 = Math.floorDiv(y + radius, cellSize);
+        for (int cx = cx1; cx <= cx2; cx++) {
+            for (int cy = cy1; cy <= cy2; cy++) {
+                Cell cell = find(cx, cy);
+                if (cell == null) {
+                    continue;
+                }
+
+                for (int i = 0; i < cell.size; i++) {
+                    long dx = cell.locations[2 * i] - x;
+                    long dy = cell.locations[2 * i + 1] - y;
+                    long distance = dx * dx + dy * dy;
+                    if ((distance < best || (!found && distance == best)) && !excluded.test(cell.owners[i])) {
+                        best = distance;
+                        bestX = cell.locations[2 * i];
+                        bestY = cell.locations[2 * i + 1];
+                        found = true;
+                    }
+                }
+            }
+        }
+
+        return found ? new Point(bestX, bestY) : null;
+    }
+
+    /**
+     * Finds the x-coordinate nearest to x of all locations in the band [x - radius, x + radius] x
+     * [y1, y2]. Used for vertical alignment guides.
+     * @param x x-coordinate of the query point
+     * @param y1 top of the band
+     * @param y2 bottom of the band
+     * @param radius maximum horizontal distance
+     * @param excluded owners whose locations are ignored
+     * @return the coordinate or Integer.MIN_VALUE if there is no location in the band
+     */
+    int nearestX(int x, int y1, int y2, int radius, Predicate<Figure> excluded) {
+        return nearestCoordinate(0, x, y1, y2, radius, excluded);
+    }
+
+    /**
+     * Finds the y-coordinate nearest to y of all locations in the band [x1, x2] x [y - radius,
+     * y + radius]. Used for horizontal alignment guides.
+     * @param y y-coordinate of the query point
+     * @param x1 left end of the band
+     * @param x2 right end of the band
+     * @param radius maximum vertical distance
+     * @param excluded owners whose locations are ignored
+     * @return the coordinate or Integer.MIN_VALUE if there is no location in the band
+     */
+    int nearestY(int y, int x1, int x2, int radius, Predicate<Figure> excluded) {
+        return nearestCoordinate(1, y, x1, x2, radius, excluded);
+    }
+
+    /**
+     * Implements nearestX (axis 0) and nearestY (axis 1).
+     */
+    private int nearestCoordinate(int axis, int v, int w1, int w2, int radius, Predicate<Figure> excluded) {
+        int other = 1 - axis;
+        int best = Integer.MIN_VALUE;
+        long bestDistance = Long.MAX_VALUE;
+
+        int cv1 = Math.floorDiv(v - radius, cellSize);
+        int cv2 = Math.floorDiv(v + radius, cellSize);
+        int cw1 = Math.floorDiv(w1, cellSize);
+        int cw2 = Math.floorDiv(w2, cellSize);
+        for (int cv = cv1; cv <= cv2; cv++) {
+            for (int cw = cw1; cw <= cw2; cw++) {
+                Cell cell = axis == 0 ? find(cv, cw) : find(cw, cv);
+                if (cell == null) {
+                    continue;
+                }
+
+                for (int i = 0; i < cell.size; i++) {
+                    int lv = cell.locations[2 * i + axis];
+                    int lw = cell.locations[2 * i + other];
+                    long distance = Math.abs((long) lv - v);
+                    if (distance <= radius && distance < bestDistance && lw >= w1 && lw <= w2
+                            && !excluded.test(cell.owners[i])) {
+                        best = lv;
+                        bestDistance = distance;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private static boolean sameLocations(int[] indexed, int[] current) {
+        for (int i = 0; i < indexed.length; i++) {
+            if (indexed[i] != current[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void removeLocations(Figure f, int[] indexed) {
+        for (int i = 0; i < indexed.length; i += 2) {
+            delete(f, indexed[i], indexed[i + 1]);
+        }
+    }
+
+    private void insert(Figure f, int x, int y) {
+        int cx = Math.floorDiv(x, cellSize);
+        int cy = Math.floorDiv(y, cellSize);
+        Cell cell = find(cx, cy);
+        if (cell == null) {
+            cell = new Cell(cx, cy);
+            int b = bucket(cx, cy, buckets.length);
+            cell.next = buckets[b];
+            buckets[b] = cell;
+            if (++cellCount > buckets.length) {
+                rehash();
+            }
+        }
+
+        if (cell.size == cell.owners.length) {
+            Figure[] owners = new Figure[2 * cell.size];
+            System.arraycopy(cell.owners, 0, owners, 0, cell.size);
+            cell.owners = owners;
+            int[] locations = new int[4 * cell.size];
+            System.arraycopy(cell.locations, 0, locations, 0, 2 * cell.size);
+            cell.locations = locations;
+        }
+        cell.owners[cell.size] = f;
+        cell.locations[2 * cell.size] = x;
+        cell.locations[2 * cell.size + 1] = y;
+        cell.size++;
+    }
+
+    private void delete(Figure f, int x, int y) {
+        int cx = Math.floorDiv(x, cellSize);
+        int cy = Math.floorDiv(y, cellSize);
+        int b = bucket(cx, cy, buckets.length);
+        Cell previous = null;
+        for (Cell cell = buckets[b]; cell != null; previous = cell, cell = cell.next) {
+            if (cell.cx != cx || cell.cy != cy) {
+                continue;
+            }
+
+            for (int i = 0; i < cell.size; i++) {
+                if (cell.owners[i] == f && cell.locations[2 * i] == x && cell.locations[2 * i + 1] == y) {
+                    int last = --cell.size;
+                    cell.owners[i] = cell.owners[last];
+                    cell.locations[2 * i] = cell.locations[2 * last];
+                    cell.locations[2 * i + 1] = cell.locations[2 * last + 1];
+                    cell.owners[last] = null;
+                    break;
+                }
+            }
+
+            // drop empty cells, otherwise moving figures would leave a trail of them
+            if (cell.size == 0) {
+                if (previous == null) {
+                    buckets[b] = cell.next;
+                } else {
+                    previous.next = cell.next;
+                }
+                cellCount--;
+            }
+            return;
+        }
+    }
+
+    private Cell find(int cx, int cy) {
+        for (Cell cell = buckets[bucket(cx, cy, buckets.length)]; cell != null; cell = cell.next) {
+            if (cell.cx == cx && cell.cy == cy) {
+                return cell;
+            }
+        }
+        return null;
+    }
+
+    private void rehash() {
+        Cell[] old = buckets;
+        buckets = new Cell[2 * old.length];
+        for (Cell head : old) {
+            Cell cell = head;
+            while (cell != null) {
+                Cell next = cell.next;
+                int b = bucket(cell.cx, cell.cy, buckets.length);
+                cell.next = buckets[b];
+                buckets[b] = cell;
+                cell = next;
+            }
+        }
+    }
+
+    private static int bucket(int cx, int cy, int length) {
+        int h = cx * 0x9E3779B1 + cy * 0x85EBCA77;
+        return (h ^ (h >>> 16)) & (length - 1);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.io;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+import jdraw.framework.Figure;
+
+/**
+ * Binary file format of JDraw drawings.
+ *
+ * A file starts with the magic number "JDRW" and the format version, followed by a table with the names
+ * of the figure types used in the file. Then the figures follow back-to-front, each one introduced by
+ * its position in the type table (starting at 1), the figure list ends with a 0. All numbers are
+ * written as variable length integers, coordinates relative to the previously written point. Figures
+ * without a codec of their own are stored with Java serialization.
+ *
+ * Drawings saved with earlier versions of JDraw, i.e. a serialized list of figures, can still be read.
+ *
+ * @author Pascal Thormeier
+ */
+public final class DrawingFormat {
+
+    /**
+     * File name extension of drawings
+     */
+    public static final String EXTENSION = ".draw";
+
+    /**
+     * Magic number at the start of every file, "JDRW"
+     */
+    static final int MAGIC = 0x4A445257;
+
+    /**
+     * Version of the format written by this class
+     */
+    static final int VERSION = 1;
+
+    /**
+     * First two bytes of a Java serialization stream, used by the files of earlier versions
+     */
+    private static final int LEGACY_MAGIC = 0xACED;
+
+    private DrawingFormat() {
+    }
+
+    /**
+     * Writes a drawing to a file. An existing file is replaced.
+     * @param file the target file
+     * @param figures the figures, back-to-front
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, Iterable<Figure> figures) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(new DrawingWriter(channel), figures);
+        }
+    }
+
+    /**
+     * Encodes a drawing in memory, so that it can be written to a file in blocks, see DrawingSaver.
+     * @param figures the figures, back-to-front
+     * @return the encoded drawing
+     */
+    static byte[] encode(Iterable<Figure> figures) {
+        DrawingWriter out = new DrawingWriter();
+        try {
+            write(out, figures);
+        } catch (IOException e) {
+            // figures without a codec of their own may fail to serialize
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void write(DrawingWriter out, Iterable<Figure> figures) throws IOException {
+        out.writeHeader();
+        for (Figure f : figures) {
+            out.writeFigure(f);
+        }
+        out.writeEnd();
+        out.flush();
+    }
+
+    /**
+     * Reads a drawing and passes the figures back-to-front to the consumer as soon as they are read.
+     * @param file the file to read
+     * @param consumer receives the figures
+     * @throws IOException if the file cannot be read or is not a drawing
+     */
+    public static void read(Path file, Consumer<Figure> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer start = ByteBuffer.allocate(4);
+            while (start.hasRemaining() && channel.read(start) >= 0) {
+                // read until the magic number is complete or the file ends
+            }
+            start.flip();
+
+            if (start.remaining() == 4 && start.getInt(0) == MAGIC) {
+                DrawingReader in = new DrawingReader(channel, start);
+                in.readHeader();
+                Figure f;
+                while ((f = in.readFigure()) != null) {
+                    consumer.accept(f);
+                }
+            } else if (start.remaining() >= 2 && (start.getShort(0) & 0xFFFF) == LEGACY_MAGIC) {
+                channel.position(0);
+                readLegacy(channel, consumer);
+            } else {
+                throw new IOException(file.getFileName() + " is not a JDraw drawing");
+            }
+        }
+    }
+
+    /**
+     * Reads a list of figures written with Java serialization.
+     */
+    private static void readLegacy(FileChannel channel, Consumer<Figure> consumer) throws IOException {
+        ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        Object figures;
+        try {
+            figures = in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown figure type " + e.getMessage(), e);
+        }
+
+        if (!(figures instanceof Iterable)) {
+            throw new IOException("Not a list of figures");
+        }
+        for (Object f : (Iterable<?>) figures) {
+            if (!(f instanceof Figure)) {
+                throw new IOException("Not a figure: " + f);
+            }
+            consumer.accept((Figure) f);
+        }
+    }
+}
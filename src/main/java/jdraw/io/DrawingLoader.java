@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.io;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+
+import jdraw.framework.DrawContext;
+import jdraw.framework.DrawModel;
+import jdraw.framework.Figure;
+
+/**
+ * Loads a drawing in the background. The file is parsed on a worker thread, the figures are added to the
+ * model of the context on the event dispatch thread in chunks, each chunk as a single batch. The drawing
+ * thus shows up and can be edited while the rest of the file is still being read.
+ *
+ * The figures are appended to the figures already in the model, clear the model before starting the
+ * loader to replace the drawing.
+ *
+ * @author Pascal Thormeier
+ */
+public class DrawingLoader extends SwingWorker<Integer, List<Figure>> {
+
+    /**
+     * Number of figures handed to the event dispatch thread at once
+     */
+    static final int CHUNK_SIZE = 10000;
+
+    /**
+     * Context to load the drawing into
+     */
+    private final DrawContext context;
+
+    /**
+     * File to load
+     */
+    private final Path file;
+
+    /**
+     * Figures read but not yet published, only used by the worker thread
+     */
+    private List<Figure> chunk = new ArrayList<>(CHUNK_SIZE);
+
+    /**
+     * Number of figures read, only used by the worker thread
+     */
+    private int read = 0;
+
+    /**
+     * Number of figures added to the model, only used on the event dispatch thread
+     */
+    private int added = 0;
+
+    /**
+     * Number of figures in the file once reading has finished, -1 before. Only used on the event
+     * dispatch thread.
+     */
+    private int total = -1;
+
+    /**
+     * @param context context whose model receives the figures
+     * @param file the file to load
+     */
+    public DrawingLoader(DrawContext context, Path file) {
+        this.context = context;
+        this.file = file;
+    }
+
+    @Override
+    protected Integer doInBackground() throws Exception {
+        DrawingFormat.read(file, this::accept);
+        if (!chunk.isEmpty()) {
+            publish(chunk);
+            chunk = null;
+        }
+        return read;
+    }
+
+    /**
+     * Collects a figure read from the file, called on the worker thread.
+     */
+    private void accept(Figure f) {
+        if (isCancelled()) {
+            throw new CancellationException();
+        }
+
+        chunk.add(f);
+        read++;
+        if (chunk.size() == CHUNK_SIZE) {
+            publish(chunk);
+            chunk = new ArrayList<>(CHUNK_SIZE);
+        }
+    }
+
+    @Override
+    protected void process(List<List<Figure>> chunks) {
+        // chunks published while the event dispatch thread was busy arrive together; adding each one in
+        // an event of its own lets user input get through in between
+        for (List<Figure> figures : chunks) {
+            SwingUtilities.invokeLater(() -> add(figures));
+        }
+    }
+
+    /**
+     * Adds a chunk of figures to the model as a single batch.
+     */
+    private void add(List<Figure> figures) {
+        if (isCancelled()) {
+            return;
+        }
+
+        DrawModel model = context.getModel();
+        model.beginUpdate();
+        try {
+            for (Figure f : figures) {
+                model.addFigure(f);
+            }
+        } finally {
+            model.endUpdate();
+        }
+        added += figures.size();
+        showProgress();
+    }
+
+    /**
+     * Shows the number of figures added. Chunks may still be added after done() was called.
+     */
+    private void showProgress() {
+        if (added == total) {
+            context.showStatusText("Loaded " + total + " figures from " + file.getFileName());
+        } else {
+            context.showStatusText("Loading " + file.getFileName() + ": " + added + " figures");
+        }
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled()) {
+            return;
+        }
+
+        try {
+            total = get();
+            showProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            context.showStatusText("Could not open " + file.getFileName() + ": " + e.getCause().getMessage());
+        }
+    }
+}
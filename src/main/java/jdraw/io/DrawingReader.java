@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import jdraw.framework.Figure;
+
+/**
+ * Buffered reader of the primitives of the drawing format, see DrawingFormat.
+ */
+final class DrawingReader {
+
+    /**
+     * Size of the read buffer
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Maximum number of entries in the type table. Files written by DrawingFormat contain one per figure
+     * class, a larger table means the file is corrupt.
+     */
+    private static final int MAX_TYPES = 1 << 12;
+
+    /**
+     * Source of the data
+     */
+    private final ReadableByteChannel channel;
+
+    /**
+     * Data read from the channel and not yet consumed, in read mode
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Codecs by their position in the type table of the file, null for unknown types
+     */
+    private FigureCodec[] types = new FigureCodec[0];
+
+    /**
+     * Names of the types in the type table of the file
+     */
+    private String[] typeNames = new String[0];
+
+    /**
+     * Last point read, coordinates are stored relative to it
+     */
+    private int lastX, lastY;
+
+    /**
+     * @param channel the source
+     * @param start bytes already read from the channel, in read mode
+     */
+    DrawingReader(ReadableByteChannel channel, ByteBuffer start) {
+        this.channel = channel;
+        buffer.put(start);
+        buffer.flip();
+    }
+
+    /**
+     * Reads and checks the magic number and the version and reads the type table.
+     */
+    void readHeader() throws IOException {
+        require(4);
+        if (buffer.getInt() != DrawingFormat.MAGIC) {
+            throw new IOException("Not a JDraw drawing");
+        }
+
+        int version = readVarInt();
+        if (version < 1 || version > DrawingFormat.VERSION) {
+            throw new IOException("Unsupported drawing format version " + Integer.toUnsignedString(version));
+        }
+
+        int count = readVarInt();
+        if (count < 0 || count > MAX_TYPES) {
+            throw new IOException("Invalid number of figure types " + Integer.toUnsignedString(count));
+        }
+        types = new FigureCodec[count];
+        typeNames = new String[count];
+        for (int i = 0; i < count; i++) {
+            typeNames[i] = readString();
+            types[i] = FigureCodecs.forName(typeNames[i]);
+        }
+    }
+
+    /**
+     * Reads the next figure.
+     * @return the figure or null at the end of a figure list
+     */
+    Figure readFigure() throws IOException {
+        int type = readVarInt();
+        if (type == 0) {
+            return null;
+        }
+        if (type < 0 || type > types.length) {
+            throw new IOException("Invalid figure type " + Integer.toUnsignedString(type));
+        }
+
+        FigureCodec codec = types[type - 1];
+        if (codec == null) {
+            throw new IOException("Unknown figure type " + typeNames[type - 1]);
+        }
+        return codec.read(this);
+    }
+
+    int readVarInt() throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            require(1);
+            byte b = buffer.get();
+            v |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return v;
+            }
+        }
+        throw new IOException("Malformed number");
+    }
+
+    int readSignedVarInt() throws IOException {
+        int v = readVarInt();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * Reads the x coordinate of a point, must be followed by readY.
+     */
+    int readX() throws IOException {
+        lastX += readSignedVarInt();
+        return lastX;
+    }
+
+    /**
+     * Reads the y coordinate of a point.
+     */
+    int readY() throws IOException {
+        lastY += readSignedVarInt();
+        return lastY;
+    }
+
+    /**
+     * Reads a byte array preceded by its length. The array grows with the data actually read, so a corrupt
+     * length fails at the end of the file instead of allocating its size up front.
+     */
+    byte[] readBytes() throws IOException {
+        int length = readVarInt();
+        if (length < 0) {
+            throw new IOException("Invalid length " + Integer.toUnsignedString(length));
+        }
+
+        byte[] bytes = new byte[Math.min(length, BUFFER_SIZE)];
+        int offset = 0;
+        while (offset < length) {
+            require(1);
+            if (offset == bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * bytes.length));
+            }
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.get(bytes, offset, n);
+            offset += n;
+        }
+        return bytes;
+    }
+
+    String readString() throws IOException {
+        return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Makes sure that at least n bytes are buffered.
+     */
+    private void require(int n) throws IOException {
+        if (buffer.remaining() >= n) {
+            return;
+        }
+
+        buffer.compact();
+        while (buffer.position() < n) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                throw new EOFException("Unexpected end of drawing");
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.SwingWorker;
+
+import jdraw.framework.DrawContext;
+import jdraw.framework.Figure;
+
+/**
+ * Saves a drawing in the background. The constructor copies the figures of the model, so the model can
+ * be edited again right away. The copies are encoded on a worker thread and written to a temporary file
+ * next to the target, which then replaces the target, so that a failed save never leaves a truncated
+ * drawing behind. Progress is shown in the status bar.
+ *
+ * @author Pascal Thormeier
+ */
+public class DrawingSaver extends SwingWorker<Path, Integer> {
+
+    /**
+     * Number of bytes written at once
+     */
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    /**
+     * Context whose drawing is saved
+     */
+    private final DrawContext context;
+
+    /**
+     * Target file
+     */
+    private final Path file;
+
+    /**
+     * Copies of the figures, back-to-front
+     */
+    private final List<Figure> figures = new ArrayList<>();
+
+    /**
+     * Copies the figures of the drawing, must be called on the event dispatch thread.
+     * @param context context whose model is saved
+     * @param file the target file, replaced if it exists
+     */
+    public DrawingSaver(DrawContext context, Path file) {
+        this.context = context;
+        this.file = file.toAbsolutePath();
+        for (Figure f : context.getModel().getFigureSnapshot()) {
+            figures.add(f.clone());
+        }
+    }
+
+    @Override
+    protected Path doInBackground() throws Exception {
+        byte[] drawing;
+        try {
+            drawing = DrawingFormat.encode(figures);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        figures.clear();
+
+        Path temp = TempFile.create(file);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(drawing);
+                while (buffer.hasRemaining()) {
+                    buffer.limit(Math.min(buffer.position() + BLOCK_SIZE, drawing.length));
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    buffer.limit(drawing.length);
+                    publish((int) (100L * buffer.position() / drawing.length));
+                }
+                channel.force(true);
+            }
+
+            TempFile.replace(temp, file);
+            return file;
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    @Override
+    protected void process(List<Integer> progress) {
+        if (!isDone()) {
+            context.showStatusText("Saving " + file.getFileName() + ": " + progress.get(progress.size() - 1) + "%");
+        }
+    }
+
+    @Override
+    protected void done() {
+        try {
+            context.showStatusText("Saved " + get().getFileName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            context.showStatusText("Could not save " + file.getFileName() + ": " + e.getCause().getMessage());
+        }
+    }
+}
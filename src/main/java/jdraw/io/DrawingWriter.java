@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import jdraw.framework.Figure;
+
+/**
+ * Buffered writer of the primitives of the drawing format, see DrawingFormat.
+ */
+final class DrawingWriter {
+
+    /**
+     * Size of the write buffer
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Largest number of bytes a single variable length int needs
+     */
+    private static final int MAX_VARINT = 5;
+
+    /**
+     * Target of the data, null if the data is kept in memory
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * Data not yet written to the channel
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Last point written, coordinates are stored relative to it
+     */
+    private int lastX, lastY;
+
+    /**
+     * Creates a writer which writes to a channel.
+     */
+    DrawingWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a writer which keeps all data in memory, see toByteArray.
+     */
+    DrawingWriter() {
+        this.channel = null;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    /**
+     * Writes the magic number, the version and the type table.
+     */
+    void writeHeader() throws IOException {
+        ensure(4);
+        buffer.putInt(DrawingFormat.MAGIC);
+        writeVarInt(DrawingFormat.VERSION);
+
+        List<FigureCodec> codecs = FigureCodecs.all();
+        writeVarInt(codecs.size());
+        for (FigureCodec codec : codecs) {
+            writeString(codec.getName());
+        }
+    }
+
+    /**
+     * Writes a figure including its type.
+     */
+    void writeFigure(Figure f) throws IOException {
+        FigureCodec codec = FigureCodecs.forFigure(f);
+        writeVarInt(FigureCodecs.indexOf(codec) + 1);
+        codec.write(f, this);
+    }
+
+    /**
+     * Marks the end of a figure list.
+     */
+    void writeEnd() throws IOException {
+        writeVarInt(0);
+    }
+
+    /**
+     * Writes a non-negative number with 7 bits per byte, small numbers take a single byte.
+     */
+    void writeVarInt(int v) throws IOException {
+        ensure(MAX_VARINT);
+        while ((v & ~0x7F) != 0) {
+            buffer.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buffer.put((byte) v);
+    }
+
+    /**
+     * Writes a number which may be negative, numbers close to 0 take a single byte (zig-zag encoding).
+     */
+    void writeSignedVarInt(int v) throws IOException {
+        writeVarInt((v << 1) ^ (v >> 31));
+    }
+
+    /**
+     * Writes a point relative to the previously written one.
+     */
+    void writePoint(int x, int y) throws IOException {
+        writeSignedVarInt(x - lastX);
+        writeSignedVarInt(y - lastY);
+        lastX = x;
+        lastY = y;
+    }
+
+    void writeBytes(byte[] bytes) throws IOException {
+        writeVarInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensure(1);
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    void writeString(String s) throws IOException {
+        writeBytes(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes all buffered data to the channel. Does nothing if the data is kept in memory.
+     */
+    void flush() throws IOException {
+        if (channel == null) {
+            return;
+        }
+
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * @return all data written so far, only for writers which keep the data in memory
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Makes room for at least n bytes, by flushing or by growing the buffer if the data is kept in memory.
+     */
+    private void ensure(int n) throws IOException {
+        if (buffer.remaining() >= n) {
+            return;
+        }
+
+        if (channel != null) {
+            flush();
+        } else {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(2 * buffer.capacity(), buffer.position() + n));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+    }
+}
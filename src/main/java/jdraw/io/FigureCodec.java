@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.io;
+
+import java.io.IOException;
+
+import jdraw.framework.Figure;
+
+/**
+ * Writes and reads the state of one type of figures.
+ */
+interface FigureCodec {
+
+    /**
+     * Returns the name under which the type is stored in the type table. It must never change,
+     * otherwise existing files cannot be read anymore.
+     * @return the name of the type
+     */
+    String getName();
+
+    /**
+     * Returns the class of the figures handled. Only figures of exactly this class are written with
+     * this codec, subclasses may have additional state.
+     * @return the figure class or null if the codec is not bound to a class
+     */
+    Class<? extends Figure> getFigureClass();
+
+    /**
+     * Writes the state of a figure.
+     * @param f a figure of the class of this codec
+     * @param out the target
+     * @throws IOException if writing fails
+     */
+    void write(Figure f, DrawingWriter out) throws IOException;
+
+    /**
+     * Reads the state of a figure and creates it.
+     * @param in the source
+     * @return the new figure
+     * @throws IOException if reading fails
+     */
+    Figure read(DrawingReader in) throws IOException;
+}
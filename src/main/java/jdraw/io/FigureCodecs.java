@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.io;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import jdraw.figures.Ellipse;
+import jdraw.figures.Group;
+import jdraw.figures.Line;
+import jdraw.figures.Rect;
+import jdraw.framework.Figure;
+
+/**
+ * The codecs of all figure types known to the drawing format.
+ */
+final class FigureCodecs {
+
+    /**
+     * Rectangles: origin, width and height
+     */
+    private static final FigureCodec RECT = new BoundsCodec("rect", Rect.class) {
+        @Override
+        Figure create(int x, int y, int w, int h) {
+            return new Rect(x, y, w, h);
+        }
+    };
+
+    /**
+     * Ellipses: origin, width and height of the bounds
+     */
+    private static final FigureCodec ELLIPSE = new BoundsCodec("ellipse", Ellipse.class) {
+        @Override
+        Figure create(int x, int y, int w, int h) {
+            return new Ellipse(x, y, w, h);
+        }
+    };
+
+    /**
+     * Lines: start point and the offset of the end point
+     */
+    private static final FigureCodec LINE = new FigureCodec() {
+        @Override
+        public String getName() {
+            return "line";
+        }
+
+        @Override
+        public Class<? extends Figure> getFigureClass() {
+            return Line.class;
+        }
+
+        @Override
+        public void write(Figure f, DrawingWriter out) throws IOException {
+            Point p1 = ((Line) f).getP1();
+            Point p2 = ((Line) f).getP2();
+            out.writePoint(p1.x, p1.y);
+            out.writeSignedVarInt(p2.x - p1.x);
+            out.writeSignedVarInt(p2.y - p1.y);
+        }
+
+        @Override
+        public Figure read(DrawingReader in) throws IOException {
+            int x = in.readX();
+            int y = in.readY();
+            return new Line(x, y, x + in.readSignedVarInt(), y + in.readSignedVarInt());
+        }
+    };
+
+    /**
+     * Groups: the number of parts followed by the parts
+     */
+    private static final FigureCodec GROUP = new FigureCodec() {
+        @Override
+        public String getName() {
+            return "group";
+        }
+
+        @Override
+        public Class<? extends Figure> getFigureClass() {
+            return Group.class;
+        }
+
+        @Override
+        public void write(Figure f, DrawingWriter out) throws IOException {
+            List<Figure> parts = new LinkedList<>();
+            ((Group) f).getFigureParts().forEach(parts::add);
+            out.writeVarInt(parts.size());
+            for (Figure part : parts) {
+                out.writeFigure(part);
+            }
+        }
+
+        @Override
+        public Figure read(DrawingReader in) throws IOException {
+            int count = in.readVarInt();
+            LinkedList<Figure> parts = new LinkedList<>();
+            for (int i = 0; i < count; i++) {
+                Figure part = in.readFigure();
+                if (part == null) {
+                    throw new IOException("Group with missing parts");
+                }
+                parts.add(part);
+            }
+            return new Group(parts);
+        }
+    };
+
+    /**
+     * All other figures, stored with Java serialization
+     */
+    private static final FigureCodec SERIALIZED = new FigureCodec() {
+        @Override
+        public String getName() {
+            return "serialized";
+        }
+
+        @Override
+        public Class<? extends Figure> getFigureClass() {
+            return null;
+        }
+
+        @Override
+        public void write(Figure f, DrawingWriter out) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+                objects.writeObject(f);
+            }
+            out.writeBytes(bytes.toByteArray());
+        }
+
+        @Override
+        public Figure read(DrawingReader in) throws IOException {
+            try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(in.readBytes()))) {
+                return (Figure) objects.readObject();
+            } catch (ClassNotFoundException | ClassCastException e) {
+                throw new IOException("Cannot read serialized figure", e);
+            }
+        }
+    };
+
+    /**
+     * All codecs in the order of the type table written
+     */
+    private static final List<FigureCodec> ALL = Collections.unmodifiableList(
+            Arrays.asList(RECT, ELLIPSE, LINE, GROUP, SERIALIZED));
+
+    /**
+     * Codecs by figure class
+     */
+    private static final Map<Class<?>, FigureCodec> BY_CLASS = new HashMap<>();
+
+    /**
+     * Codecs by name
+     */
+    private static final Map<String, FigureCodec> BY_NAME = new HashMap<>();
+
+    /**
+     * Positions of the codecs in ALL
+     */
+    private static final Map<FigureCodec, Integer> INDICES = new IdentityHashMap<>();
+
+    static {
+        for (FigureCodec codec : ALL) {
+            INDICES.put(codec, INDICES.size());
+            if (codec.getFigureClass() != null) {
+                BY_CLASS.put(codec.getFigureClass(), codec);
+            }
+            BY_NAME.put(codec.getName(), codec);
+        }
+    }
+
+    private FigureCodecs() {
+    }
+
+    /**
+     * @return all codecs
+     */
+    static List<FigureCodec> all() {
+        return ALL;
+    }
+
+    /**
+     * @param codec one of the codecs
+     * @return the position of the codec in the type table written
+     */
+    static int indexOf(FigureCodec codec) {
+        return INDICES.get(codec);
+    }
+
+    /**
+     * @param f a figure
+     * @return the codec for the figure, falls back to Java serialization
+     */
+    static FigureCodec forFigure(Figure f) {
+        return BY_CLASS.getOrDefault(f.getClass(), SERIALIZED);
+    }
+
+    /**
+     * @param name name from a type table
+     * @return the codec or null if the type is unknown
+     */
+    static FigureCodec forName(String name) {
+        return BY_NAME.get(name);
+    }
+
+    /**
+     * Codec of figures which are fully described by their bounds.
+     */
+    private abstract static class BoundsCodec implements FigureCodec {
+        private final String name;
+        private final Class<? extends Figure> figureClass;
+
+        BoundsCodec(String name, Class<? extends Figure> figureClass) {
+            this.name = name;
+            this.figureClass = figureClass;
+        }
+
+        abstract Figure create(int x, int y, int w, int h);
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Class<? extends Figure> getFigureClass() {
+            return figureClass;
+        }
+
+        @Override
+        public void write(Figure f, DrawingWriter out) throws IOException {
+            Rectangle r = f.getBounds();
+            out.writePoint(r.x, r.y);
+            out.writeSignedVarInt(r.width);
+            out.writeSignedVarInt(r.height);
+        }
+
+        @Override
+        public Figure read(DrawingReader in) throws IOException {
+            int x = in.readX();
+            int y = in.readY();
+            return create(x, y, in.readSignedVarInt(), in.readSignedVarInt());
+        }
+    }
+}
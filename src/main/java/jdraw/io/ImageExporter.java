@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.io;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import javax.imageio.ImageIO;
+import javax.swing.SwingWorker;
+
+import jdraw.framework.DrawContext;
+import jdraw.framework.Figure;
+
+/**
+ * Exports a drawing as PNG image in the background. The constructor copies the figures of the model, so
+ * the model can be edited again right away while the copies are rendered in parallel by a TileRenderer.
+ * The image covers the bounds of all figures on a white background and replaces the target file only
+ * once it is completely written.
+ *
+ * @author Pascal Thormeier
+ */
+public class ImageExporter extends SwingWorker<Path, Void> {
+
+    /**
+     * File extension of exported images
+     */
+    public static final String EXTENSION = ".png";
+
+    /**
+     * Context whose drawing is exported
+     */
+    private final DrawContext context;
+
+    /**
+     * Target file
+     */
+    private final Path file;
+
+    /**
+     * Copies of the figures, back-to-front
+     */
+    private final List<Figure> figures = new ArrayList<>();
+
+    /**
+     * Takes the copy of the drawing, must be called on the event dispatch thread.
+     * @param context context whose model is exported
+     * @param file the target file, replaced if it exists
+     */
+    public ImageExporter(DrawContext context, Path file) {
+        this.context = context;
+        this.file = file.toAbsolutePath();
+        for (Figure f : context.getModel().getFigures()) {
+            figures.add(f.clone());
+        }
+    }
+
+    @Override
+    protected Path doInBackground() throws Exception {
+        Rectangle area = TileRenderer.extent(figures);
+        if (area == null) {
+            throw new IOException("the drawing is empty");
+        }
+
+        BufferedImage rendered = new TileRenderer().render(figures, area);
+        BufferedImage image = new BufferedImage(area.width, area.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, area.width, area.height);
+            g.drawImage(rendered, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+
+        Path temp = TempFile.create(file);
+        try {
+            if (!ImageIO.write(image, "png", temp.toFile())) {
+                throw new IOException("no PNG writer available");
+            }
+            TempFile.replace(temp, file);
+            return file;
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    @Override
+    protected void done() {
+        try {
+            context.showStatusText("Exported " + get().getFileName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            context.showStatusText("Could not export " + file.getFileName() + ": " + e.getCause().getMessage());
+        }
+    }
+}
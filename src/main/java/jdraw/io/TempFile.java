@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.io;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Temporary files which replace a target file once they are completely written, so that a failed write
+ * never leaves a truncated file behind.
+ *
+ * Unlike Files.createTempFile, which always creates files readable by the owner only, the temporary file
+ * gets the permissions of the target if it exists, or the default permissions of a new file otherwise.
+ * Replacing the target therefore keeps its permissions.
+ *
+ * @author Pascal Thormeier
+ */
+final class TempFile {
+
+    private TempFile() {
+    }
+
+    /**
+     * Creates an empty temporary file next to the target.
+     * @param file the target file
+     * @return the new file
+     * @throws IOException if the file cannot be created
+     */
+    static Path create(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        String prefix = file.getFileName().toString();
+        while (true) {
+            Path temp = dir.resolve(prefix + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                Files.createFile(temp);
+            } catch (FileAlreadyExistsException e) {
+                continue;
+            }
+
+            try {
+                if (Files.exists(file) && Files.getFileAttributeView(file, PosixFileAttributeView.class) != null) {
+                    Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(file));
+                }
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            return temp;
+        }
+    }
+
+    /**
+     * Replaces the target by a temporary file, atomically if the file system supports it.
+     * @param temp the completely written temporary file
+     * @param file the target file
+     * @throws IOException if the file cannot be moved
+     */
+    static void replace(Path temp, Path file) throws IOException {
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.io;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import jdraw.framework.DrawModel;
+import jdraw.framework.Figure;
+
+/**
+ * Renders figures into images without a view. The area to render is split into square tiles on a fixed
+ * grid, the tiles are rasterized in parallel on a ForkJoinPool and then stitched together. The grid is
+ * the same as the one of the tile cache of the view, so rendered tiles can also be used to fill the cache.
+ *
+ * The figures are distributed onto the tiles in a single pass before rendering starts; each tile only
+ * draws the figures whose bounds intersect it, in their original order. Figures are drawn concurrently
+ * and must not be changed until rendering is done, e.g. by rendering on the event dispatch thread or by
+ * rendering copies of the figures.
+ *
+ * @author Pascal Thormeier
+ */
+public final class TileRenderer {
+
+    /**
+     * Width and height of a tile in pixels
+     */
+    public static final int TILE_SIZE = 256;
+
+    /**
+     * Pixels a figure may draw outside its bounds, e.g. the right and bottom edge of an outline. Tiles
+     * are rendered with this margin around them as well: curves are rasterized slightly differently
+     * next to the edge of the clip, the margin keeps these pixels out of the visible part of the tile.
+     */
+    public static final int MARGIN = 2;
+
+    /**
+     * Pool the tiles are rendered on
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a renderer using the common pool, i.e. all cores.
+     */
+    public TileRenderer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool pool the tiles are rendered on
+     */
+    public TileRenderer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Renders all figures of a model.
+     * @param model the model
+     * @return the figures on a transparent background, cropped to their bounds including the margin;
+     *         null if the model is empty
+     */
+    public BufferedImage render(DrawModel model) {
+        Iterable<Figure> figures = model.getFigureSnapshot();
+        Rectangle area = extent(figures);
+        return area == null ? null : render(figures, area);
+    }
+
+    /**
+     * Renders an area of the drawing.
+     * @param figures the figures, back-to-front
+     * @param area the area to render, not empty
+     * @return the area on a transparent background; pixel (0, 0) shows the location (area.x, area.y)
+     */
+    public BufferedImage render(Iterable<Figure> figures, Rectangle area) {
+        int tx1 = Math.floorDiv(area.x, TILE_SIZE);
+        int ty1 = Math.floorDiv(area.y, TILE_SIZE);
+        int tx2 = Math.floorDiv(area.x + area.width - 1, TILE_SIZE);
+        int ty2 = Math.floorDiv(area.y + area.height - 1, TILE_SIZE);
+        BufferedImage[] tiles = renderTiles(figures, tx1, ty1, tx2, ty2, null);
+
+        BufferedImage image = new BufferedImage(area.width, area.height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.translate(-area.x, -area.y);
+            int columns = tx2 - tx1 + 1;
+            for (int i = 0; i < tiles.length; i++) {
+                int x = (tx1 + i % columns) * TILE_SIZE;
+                int y = (ty1 + i / columns) * TILE_SIZE;
+                g.drawImage(tiles[i], x, y, x + TILE_SIZE, y + TILE_SIZE,
+                        MARGIN, MARGIN, MARGIN + TILE_SIZE, MARGIN + TILE_SIZE, null);
+                tiles[i] = null;
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Renders a range of tiles in parallel. Blocks until all tiles are done.
+     * @param figures the figures, back-to-front
+     * @param tx1 first column
+     * @param ty1 first row
+     * @param tx2 last column
+     * @param ty2 last row
+     * @param wanted for each tile row by row whether it is needed, null for all tiles
+     * @return the tiles row by row as rendered by renderTile, null for tiles which are not wanted
+     */
+    public BufferedImage[] renderTiles(Iterable<Figure> figures, int tx1, int ty1, int tx2, int ty2,
+            boolean[] wanted) {
+        int columns = tx2 - tx1 + 1;
+        int count = columns * (ty2 - ty1 + 1);
+
+        // distribute the figures onto the tiles they may draw into, keeping their order
+        Figure[][] buckets = new Figure[count][];
+        int[] sizes = new int[count];
+        Rectangle r = new Rectangle();
+        for (Figure f : figures) {
+            f.getBounds(r);
+            int fx1 = Math.max(tx1, Math.floorDiv(r.x - MARGIN, TILE_SIZE));
+            int fy1 = Math.max(ty1, Math.floorDiv(r.y - MARGIN, TILE_SIZE));
+            int fx2 = Math.min(tx2, Math.floorDiv(r.x + r.width + MARGIN, TILE_SIZE));
+            int fy2 = Math.min(ty2, Math.floorDiv(r.y + r.height + MARGIN, TILE_SIZE));
+            for (int ty = fy1; ty <= fy2; ty++) {
+                for (int tx = fx1; tx <= fx2; tx++) {
+                    int i = (ty - ty1) * columns + tx - tx1;
+                    if (wanted != null && !wanted[i]) {
+                        continue;
+                    }
+                    if (buckets[i] == null) {
+                        buckets[i] = new Figure[8];
+                    } else if (sizes[i] == buckets[i].length) {
+                        buckets[i] = Arrays.copyOf(buckets[i], 2 * sizes[i]);
+                    }
+                    buckets[i][sizes[i]++] = f;
+                }
+            }
+        }
+
+        BufferedImage[] tiles = new BufferedImage[count];
+        if (count > 0) {
+            pool.invoke(new RenderTask(new Job(buckets, sizes, wanted, tiles, tx1, ty1, columns), 0, count));
+        }
+        return tiles;
+    }
+
+    /**
+     * The figures per tile and the results of a call of renderTiles
+     */
+    private static final class Job {
+        final Figure[][] buckets;
+        final int[] sizes;
+        final boolean[] wanted;
+        final BufferedImage[] tiles;
+        final int tx1, ty1, columns;
+
+        Job(Figure[][] buckets, int[] sizes, boolean[] wanted, BufferedImage[] tiles, int tx1, int ty1,
+                int columns) {
+            this.buckets = buckets;
+            this.sizes = sizes;
+            this.wanted = wanted;
+            this.tiles = tiles;
+            this.tx1 = tx1;
+            this.ty1 = ty1;
+            this.columns = columns;
+        }
+    }
+
+    /**
+     * Renders a range of tiles of a job, split in halves until single tiles are left.
+     */
+    private static final class RenderTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Job job;
+        private final int from, to;
+
+        RenderTask(Job job, int from, int to) {
+            this.job = job;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RenderTask(job, from, middle), new RenderTask(job, middle, to));
+                return;
+            }
+
+            if (job.wanted != null && !job.wanted[from]) {
+                return;
+            }
+            Figure[] bucket = job.buckets[from];
+            List<Figure> figures = bucket == null
+                    ? Collections.emptyList() : Arrays.asList(bucket).subList(0, job.sizes[from]);
+            job.tiles[from] = renderTile(figures, job.tx1 + from % job.columns, job.ty1 + from / job.columns);
+        }
+    }
+
+    /**
+     * Renders a single tile.
+     * @param figures the figures intersecting the tile, back-to-front
+     * @param tx column of the tile
+     * @param ty row of the tile
+     * @return the tile with the margin around it, transparent where there are no figures
+     */
+    public static BufferedImage renderTile(Iterable<Figure> figures, int tx, int ty) {
+        int size = TILE_SIZE + 2 * MARGIN;
+        BufferedImage tile = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = tile.createGraphics();
+        try {
+            g.translate(MARGIN - tx * TILE_SIZE, MARGIN - ty * TILE_SIZE);
+            g.setClip(tx * TILE_SIZE - MARGIN, ty * TILE_SIZE - MARGIN, size, size);
+            for (Figure f : figures) {
+                f.draw(g);
+            }
+        } finally {
+            g.dispose();
+        }
+        return tile;
+    }
+
+    /**
+     * @param tx column of the tile
+     * @param ty row of the tile
+     * @return the area in which figures may draw into a tile, closed like the queries of the model
+     */
+    public static Rectangle tileBounds(int tx, int ty) {
+        return new Rectangle(tx * TILE_SIZE - MARGIN, ty * TILE_SIZE - MARGIN,
+                TILE_SIZE - 1 + 2 * MARGIN, TILE_SIZE - 1 + 2 * MARGIN);
+    }
+
+    /**
+     * @param figures the figures
+     * @return the union of the bounds of the figures including the margin, null if there are none
+     */
+    public static Rectangle extent(Iterable<Figure> figures) {
+        Rectangle extent = null;
+        Rectangle r = new Rectangle();
+        for (Figure f : figures) {
+            f.getBounds(r);
+            if (extent == null) {
+                extent = new Rectangle(r);
+            } else {
+                extent.add(r);
+            }
+        }
+        if (extent != null) {
+            extent.grow(MARGIN, MARGIN);
+        }
+        return extent;
+    }
+}
@@ -0,0 +1,10 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+/**
+ * Reading and writing of drawings. The binary .draw format is described in DrawingFormat.
+ * @author Pascal Thormeier
+ */
+package jdraw.io;
@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import jdraw.framework.DrawCommand;
+import jdraw.framework.DrawCommandHandler;
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.DrawModelListener;
+import jdraw.framework.Figure;
+import jdraw.framework.FigureListener;
+
+/**
+ * Provides the behavior shared by all draw models: listener management, notification, the
+ * registration of the model's figure listener and a spatial index over all figures which is used to
+ * answer area and point queries. Subclasses only decide how the figures are stored.
+ * @author Pascal Thormeier
+ */
+public abstract class AbstractDrawModel implements DrawModel {
+
+    /**
+     * All DrawModelListeners. The array is replaced instead of modified, see notifyAllListeners.
+     */
+    private DrawModelListener[] listeners = new DrawModelListener[0];
+
+    /**
+     * Spatial index over the bounds of all figures
+     */
+    private final FigureIndex index = new FigureIndex();
+
+    /**
+     * Listener to register on figures, keeps the spatial index up to date
+     */
+    private FigureListener figureListener = e -> {
+        Rectangle region = index.update(e.getFigure());
+        notifyChange(e.getFigure(), DrawModelEvent.Type.FIGURE_CHANGED, region);
+    };
+
+    /** The draw command handler. */
+    private DrawCommandHandler handler = new StdDrawCommandHandler();
+
+    /**
+     * Handler handed out by getDrawCommandHandler. Wraps scripts, undo and redo into batches.
+     */
+    private final DrawCommandHandler batchingHandler = new BatchingCommandHandler();
+
+    /**
+     * Number of open batches, see beginUpdate
+     */
+    private int updateDepth = 0;
+
+    /**
+     * Figures added or changed during the open batches and not yet reported
+     */
+    private final Set<Figure> pendingFigures = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Union of the regions affected by the pending changes, null if unknown
+     */
+    private Rectangle pendingRegion;
+
+    /**
+     * Event type to report if only a single figure is pending
+     */
+    private DrawModelEvent.Type pendingType;
+
+    /**
+     * Checks whether the given figure is stored in this model.
+     * @param f the figure to look for
+     * @return true if the figure is contained
+     */
+    protected abstract boolean containsFigure(Figure f);
+
+    /**
+     * Stores the figure as the new front-most figure.
+     * @param f a figure which is not yet contained
+     */
+    protected abstract void appendFigure(Figure f);
+
+    /**
+     * Removes the figure from the store.
+     * @param f a figure which is contained
+     */
+    protected abstract void detachFigure(Figure f);
+
+    /**
+     * Moves the figure to the given position, leaving the order of all other figures untouched.
+     * @param f a figure which is contained
+     * @param index a valid index
+     */
+    protected abstract void moveFigure(Figure f, int index);
+
+    /**
+     * Removes all figures from the store.
+     */
+    protected abstract void clearFigures();
+
+    /**
+     * Returns the number of figures stored.
+     * @return number of figures
+     */
+    protected abstract int getFigureCount();
+
+    @Override
+    public void addFigure(Figure f) {
+        if (containsFigure(f)) {
+            return;
+        }
+
+        appendFigure(f);
+        index.add(f);
+        f.addFigureListener(figureListener);
+
+        notifyChange(f, DrawModelEvent.Type.FIGURE_ADDED, f.getBounds());
+    }
+
+    @Override
+    public void removeFigure(Figure f) {
+        if (!containsFigure(f)) {
+            return;
+        }
+
+        f.removeFigureListener(figureListener);
+        detachFigure(f);
+        Rectangle region = index.remove(f);
+        pendingFigures.remove(f);
+
+        notifyAllListeners(f, DrawModelEvent.Type.FIGURE_REMOVED, region);
+    }
+
+    @Override
+    public void addModelChangeListener(DrawModelListener listener) {
+        DrawModelListener[] changed = Arrays.copyOf(listeners, listeners.length + 1);
+        changed[listeners.length] = listener;
+        listeners = changed;
+    }
+
+    @Override
+    public void removeModelChangeListener(DrawModelListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                DrawModelListener[] changed = new DrawModelListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, changed, 0, i);
+                System.arraycopy(listeners, i + 1, changed, i, listeners.length - i - 1);
+                listeners = changed;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Retrieve the draw command handler in use.
+     * @return the draw command handler.
+     */
+    @Override
+    public DrawCommandHandler getDrawCommandHandler() {
+        return batchingHandler;
+    }
+
+    @Override
+    public void setFigureIndex(Figure f, int index) {
+        if (!containsFigure(f)) {
+            throw new IllegalArgumentException("Figure not contained in model!");
+        }
+
+        if (index < 0 || index > getFigureCount() - 1) {
+            throw new IndexOutOfBoundsException("index " + index + " exceeds maximum index " + (getFigureCount() - 1));
+        }
+
+        moveFigure(f, index);
+
+        notifyChange(f, DrawModelEvent.Type.DRAWING_CHANGED, f.getBounds());
+    }
+
+    @Override
+    public void removeAllFigures() {
+        getFigures().forEach(f -> f.removeFigureListener(figureListener));
+        clearFigures();
+        index.clear();
+        pendingFigures.clear();
+        pendingRegion = null;
+
+        notifyAllListeners(null, DrawModelEvent.Type.DRAWING_CLEARED, null);
+    }
+
+    @Override
+    public void beginUpdate() {
+        updateDepth++;
+    }
+
+    @Override
+    public void endUpdate() {
+        if (updateDepth > 0) {
+            updateDepth--;
+        }
+
+        if (pendingFigures.isEmpty()) {
+            return;
+        }
+
+        Rectangle region = pendingRegion;
+        pendingRegion = null;
+        if (pendingFigures.size() == 1) {
+            Figure f = pendingFigures.iterator().next();
+            pendingFigures.clear();
+            notifyAllListeners(f, pendingType, region);
+        } else {
+            Set<Figure> figures = Collections.newSetFromMap(new IdentityHashMap<>());
+            figures.addAll(pendingFigures);
+            pendingFigures.clear();
+            notifyAllListeners(new DrawModelEvent(this, figures, region));
+        }
+    }
+
+    @Override
+    public List<Figure> getFiguresIntersecting(Rectangle r) {
+        return sortBackToFront(index.search(r.x, r.y, r.x + r.width, r.y + r.height));
+    }
+
+    @Override
+    public List<Figure> getFiguresAt(int x, int y) {
+        List<Figure> candidates = index.search(x, y, x, y);
+        candidates.removeIf(f -> !f.contains(x, y));
+
+        List<Figure> figures = sortBackToFront(candidates);
+        Collections.reverse(figures);
+        return figures;
+    }
+
+    /**
+     * Brings a set of figures into back-to-front order. This implementation scans all figures of the
+     * model; subclasses which can look up the index of a figure quickly should override it.
+     * @param figures figures of this model in any order
+     * @return the same figures, back-to-front
+     */
+    protected List<Figure> sortBackToFront(List<Figure> figures) {
+        if (figures.size() <= 1) {
+            return figures;
+        }
+
+        Set<Figure> wanted = Collections.newSetFromMap(new IdentityHashMap<>());
+        wanted.addAll(figures);
+
+        List<Figure> sorted = new ArrayList<>(figures.size());
+        for (Figure f : getFigures()) {
+            if (wanted.contains(f)) {
+                sorted.add(f);
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * Reports an added or changed figure. Inside a batch the change is only recorded.
+     * @param f the figure
+     * @param type the event type to use if the change is reported on its own
+     * @param region area affected by the change, null for the whole drawing
+     */
+    private void notifyChange(Figure f, DrawModelEvent.Type type, Rectangle region) {
+        if (updateDepth == 0) {
+            notifyAllListeners(f, type, region);
+            return;
+        }
+
+        boolean first = pendingFigures.isEmpty();
+        boolean added = pendingFigures.add(f);
+        if (first || (!added && pendingFigures.size() == 1 && pendingType != DrawModelEvent.Type.FIGURE_ADDED)) {
+            pendingType = type;
+        }
+
+        if (region == null) {
+            pendingRegion = null;
+        } else if (first) {
+            pendingRegion = new Rectangle(region);
+        } else if (pendingRegion != null) {
+            pendingRegion.add(region);
+        }
+    }
+
+    /**
+     * Notifies all listeners
+     * @param f
+     * @param type
+     * @param region area affected by the change, null for the whole drawing
+     */
+    private void notifyAllListeners(Figure f, DrawModelEvent.Type type, Rectangle region) {
+        notifyAllListeners(new DrawModelEvent(this, f, type, region));
+    }
+
+    /**
+     * Notifies all listeners
+     * @param event the event to send
+     */
+    private void notifyAllListeners(DrawModelEvent event) {
+        // listeners (de)registering during notification replace the array, this loop keeps the snapshot
+        for (DrawModelListener drawModelListener : listeners) {
+            drawModelListener.modelChanged(event);
+        }
+    }
+
+    /**
+     * Wraps scripts as well as undo and redo into batches, so that e.g. undoing the move of many figures
+     * is reported as a single change.
+     */
+    private final class BatchingCommandHandler implements DrawCommandHandler {
+
+        @Override
+        public void addCommand(DrawCommand cmd) {
+            handler.addCommand(cmd);
+        }
+
+        @Override
+        public void undo() {
+            beginUpdate();
+            try {
+                handler.undo();
+            } finally {
+                endUpdate();
+            }
+        }
+
+        @Override
+        public void redo() {
+            beginUpdate();
+            try {
+                handler.redo();
+            } finally {
+                endUpdate();
+            }
+        }
+
+        @Override
+        public boolean undoPossible() {
+            return handler.undoPossible();
+        }
+
+        @Override
+        public boolean redoPossible() {
+            return handler.redoPossible();
+        }
+
+        @Override
+        public void beginScript() {
+            beginUpdate();
+            handler.beginScript();
+        }
+
+        @Override
+        public void endScript() {
+            handler.endScript();
+            endUpdate();
+        }
+
+        @Override
+        public void clearHistory() {
+            handler.clearHistory();
+        }
+    }
+}
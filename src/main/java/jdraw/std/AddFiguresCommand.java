@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.util.Collection;
+
+import jdraw.framework.DrawCommand;
+import jdraw.framework.DrawModel;
+import jdraw.framework.Figure;
+
+/**
+ * Adds figures in front of all other figures of the drawing model, e.g. when pasting. This can be undone.
+ * @author Pascal Thormeier
+ */
+public class AddFiguresCommand implements DrawCommand {
+    private static final long serialVersionUID = 1L;
+
+    /** The model to which the figures are added. */
+    private final DrawModel model;
+
+    /** The added figures, back-to-front. */
+    private final Figure[] figures;
+
+    /**
+     * @param model the model to which the figures were added.
+     * @param figures the added figures, back-to-front.
+     */
+    public AddFiguresCommand(DrawModel model, Collection<Figure> figures) {
+        this.model = model;
+        this.figures = figures.toArray(new Figure[figures.size()]);
+    }
+
+    /**
+     * Add the figures again.
+     */
+    @Override
+    public void redo() {
+        for (Figure f : figures) {
+            model.addFigure(f);
+        }
+    }
+
+    /**
+     * Remove the added figures.
+     */
+    @Override
+    public void undo() {
+        for (int i = figures.length - 1; i >= 0; i--) {
+            model.removeFigure(figures[i]);
+        }
+    }
+
+    /**
+     * While undone, the figures are only kept alive by this command.
+     */
+    @Override
+    public long estimateSize() {
+        return 32 + 16 + (8 + RemoveFigureCommand.FIGURE_SIZE) * figures.length;
+    }
+}
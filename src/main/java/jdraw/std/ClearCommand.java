@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import jdraw.framework.DrawCommand;
+import jdraw.framework.DrawModel;
+import jdraw.framework.Figure;
+
+/**
+ * Removes all figures from the drawing model. This removal can be undone. The figures are kept in a
+ * snapshot of the model, see DrawModel.getFigureSnapshot.
+ * @author Pascal Thormeier
+ */
+public class ClearCommand implements DrawCommand {
+    private static final long serialVersionUID = 1L;
+
+    /** Estimated memory per figure of the snapshot, in addition to the figure. */
+    private static final long NODE_SIZE = 48;
+
+    /** The model to clear. */
+    private final DrawModel model;
+
+    /** The figures of the model before it was cleared, back-to-front. */
+    private final Iterable<Figure> figures;
+
+    /** Number of figures in the snapshot. */
+    private final int count;
+
+    /**
+     * Takes the snapshot, must be created BEFORE the model is cleared.
+     * @param model the model to clear.
+     */
+    public ClearCommand(DrawModel model) {
+        this.model = model;
+        this.figures = model.getFigureSnapshot();
+        int n = 0;
+        for (Figure f : figures) {
+            n++;
+        }
+        this.count = n;
+    }
+
+    /**
+     * Clear the model again.
+     */
+    @Override
+    public void redo() {
+        model.removeAllFigures();
+    }
+
+    /**
+     * Add the figures of the snapshot again.
+     */
+    @Override
+    public void undo() {
+        for (Figure f : figures) {
+            model.addFigure(f);
+        }
+    }
+
+    /**
+     * Once the model is cleared, the figures are only kept alive by this command.
+     */
+    @Override
+    public long estimateSize() {
+        return 48 + (NODE_SIZE + RemoveFigureCommand.FIGURE_SIZE) * count;
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdraw.framework.Figure;
+
+/**
+ * Spatial index over the bounds of figures (R-tree with quadratic split).
+ *
+ * Bounds are treated as closed intervals, i.e. a figure with bounds (x, y, w, h) covers
+ * [x, x + w] x [y, y + h]. This way lines with a width or height of 0 are found as well. The index
+ * does not know anything about the z-order of the figures, queries return the figures in no
+ * particular order.
+ */
+final class FigureIndex {
+
+    /**
+     * Maximum number of children per node
+     */
+    private static final int MAX_ENTRIES = 16;
+
+    /**
+     * Minimum number of children per node, except for the root
+     */
+    private static final int MIN_ENTRIES = 6;
+
+    /**
+     * Closed bounding box, shared by nodes and leaf entries
+     */
+    private abstract static class Box {
+        /** Bounds */
+        int x1, y1, x2, y2;
+        /** Node containing this box */
+        Node parent;
+
+        long area() {
+            return (long) (x2 - x1) * (y2 - y1);
+        }
+
+        boolean intersects(int ax1, int ay1, int ax2, int ay2) {
+            return x1 <= ax2 && ax1 <= x2 && y1 <= ay2 && ay1 <= y2;
+        }
+    }
+
+    /**
+     * Leaf entry, one per figure
+     */
+    private static final class Entry extends Box {
+        final Figure figure;
+
+        Entry(Figure figure) {
+            this.figure = figure;
+        }
+    }
+
+    /**
+     * Tree node. Children of a leaf node are entries, children of inner nodes are nodes.
+     */
+    private static final class Node extends Box {
+        final boolean leaf;
+        final Box[] children = new Box[MAX_ENTRIES + 1];
+        int count;
+
+        Node(boolean leaf) {
+            this.leaf = leaf;
+        }
+    }
+
+    /**
+     * Entries by figure (identity)
+     */
+    private final Map<Figure, Entry> entries = new IdentityHashMap<>();
+
+    /**
+     * Root node
+     */
+    private Node root = new Node(true);
+
+    /**
+     * Adds a figure with its current bounds.
+     * @param f figure to add
+     */
+    void add(Figure f) {
+        Entry e = new Entry(f);
+        setBounds(e, f.getBounds());
+        entries.put(f, e);
+        insert(e);
+    }
+
+    /**
+     * Removes a figure. Does nothing if the figure is not indexed.
+     * @param f figure to remove
+     * @return the bounds the figure was indexed with or null if it was not indexed
+     */
+    Rectangle remove(Figure f) {
+        Entry e = entries.remove(f);
+        if (e == null) {
+            return null;
+        }
+
+        detach(e);
+        return toRectangle(e);
+    }
+
+    /**
+     * Updates the position of a figure after its bounds changed.
+     * @param f figure which changed
+     * @return the union of the previous and the new bounds or null if the figure is not indexed
+     */
+    Rectangle update(Figure f) {
+        Entry e = entries.get(f);
+        if (e == null) {
+            return null;
+        }
+
+        Rectangle previous = toRectangle(e);
+        Rectangle b = f.getBounds();
+        previous.add(b);
+        if (e.x1 == b.x && e.y1 == b.y && e.x2 == b.x + b.width && e.y2 == b.y + b.height) {
+            return previous;
+        }
+
+        detach(e);
+        setBounds(e, b);
+        insert(e);
+        return previous;
+    }
+
+    /**
+     * Removes all figures.
+     */
+    void clear() {
+        entries.clear();
+        root = new Node(true);
+    }
+
+    /**
+     * Collects all figures whose bounds intersect the given closed area.
+     * @param x1 left
+     * @param y1 top
+     * @param x2 right
+     * @param y2 bottom
+     * @return the figures found, in no particular order
+     */
+    List<Figure> search(int x1, int y1, int x2, int y2) {
+        List<Figure> result = new ArrayList<>();
+        search(root, x1, y1, x2, y2, result);
+        return result;
+    }
+
+    private static void search(Node n, int x1, int y1, int x2, int y2, List<Figure> result) {
+        for (int i = 0; i < n.count; i++) {
+            Box child = n.children[i];
+            if (child.intersects(x1, y1, x2, y2)) {
+                if (n.leaf) {
+                    result.add(((Entry) child).figure);
+                } else {
+                    search((Node) child, x1, y1, x2, y2, result);
+                }
+            }
+        }
+    }
+
+    private static Rectangle toRectangle(Box box) {
+        return new Rectangle(box.x1, box.y1, box.x2 - box.x1, box.y2 - box.y1);
+    }
+
+    private static void setBounds(Box box, Rectangle b) {
+        box.x1 = b.x;
+        box.y1 = b.y;
+        box.x2 = b.x + b.width;
+        box.y2 = b.y + b.height;
+    }
+
+    /**
+     * Inserts an entry and splits nodes on the way up if necessary.
+     */
+    private void insert(Entry e) {
+        Node n = root;
+        while (!n.leaf) {
+            n = chooseChild(n, e);
+        }
+
+        add(n, e);
+        Node split = n.count > MAX_ENTRIES ? split(n) : null;
+
+        while (true) {
+            recalculate(n);
+            if (n == root) {
+                if (split != null) {
+                    root = new Node(false);
+                    add(root, n);
+                    add(root, split);
+                    recalculate(root);
+                }
+                return;
+            }
+
+            Node parent = n.parent;
+            if (split != null) {
+                add(parent, split);
+                split = parent.count > MAX_ENTRIES ? split(parent) : null;
+            }
+            n = parent;
+        }
+    }
+
+    /**
+     * Removes an entry from its leaf and condenses the tree. Entries of underfull nodes are reinserted.
+     */
+    private void detach(Entry e) {
+        Node n = e.parent;
+        removeChild(n, e);
+
+        List<Entry> orphans = new ArrayList<>();
+        while (n != root) {
+            Node parent = n.parent;
+            if (n.count < MIN_ENTRIES) {
+                removeChild(parent, n);
+                collect(n, orphans);
+            } else {
+                recalculate(n);
+            }
+            n = parent;
+        }
+        recalculate(root);
+
+        while (!root.leaf && root.count <= 1) {
+            root = root.count == 0 ? new Node(true) : (Node) root.children[0];
+            root.parent = null;
+        }
+
+        for (Entry orphan : orphans) {
+            insert(orphan);
+        }
+    }
+
+    /**
+     * Picks the child which needs the least enlargement to include the entry.
+     */
+    private static Node chooseChild(Node n, Box b) {
+        Node best = null;
+        long bestEnlargement = Long.MAX_VALUE;
+        long bestArea = Long.MAX_VALUE;
+        for (int i = 0; i < n.count; i++) {
+            Node child = (Node) n.children[i];
+            long area = child.area();
+            long enlargement = unionArea(child, b) - area;
+            if (enlargement < bestEnlargement || (enlargement == bestEnlargement && area < bestArea)) {
+                best = child;
+                bestEnlargement = enlargement;
+                bestArea = area;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Quadratic split. The children of n are distributed between n and a new sibling which is returned.
+     */
+    private static Node split(Node n) {
+        int total = n.count;
+        Box[] all = new Box[total];
+        System.arraycopy(n.children, 0, all, 0, total);
+        for (int i = 0; i < total; i++) {
+            n.children[i] = null;
+        }
+        n.count = 0;
+
+        int seed1 = 0;
+        int seed2 = 1;
+        long worst = Long.MIN_VALUE;
+        for (int i = 0; i < total; i++) {
+            for (int j = i + 1; j < total; j++) {
+                long waste = unionArea(all[i], all[j]) - all[i].area() - all[j].area();
+                if (waste > worst) {
+                    worst = waste;
+                    seed1 = i;
+                    seed2 = j;
+                }
+            }
+        }
+
+        Node sibling = new Node(n.leaf);
+        add(n, all[seed1]);
+        add(sibling, all[seed2]);
+        recalculate(n);
+        recalculate(sibling);
+
+        int remaining = total - 2;
+        for (int i = 0; i < total; i++) {
+            if (i == seed1 || i == seed2) {
+                continue;
+            }
+
+            Box b = all[i];
+            Node target;
+            if (n.count + remaining == MIN_ENTRIES) {
+                target = n;
+            } else if (sibling.count + remaining == MIN_ENTRIES) {
+                target = sibling;
+            } else {
+                long e1 = unionArea(n, b) - n.area();
+                long e2 = unionArea(sibling, b) - sibling.area();
+                if (e1 != e2) {
+                    target = e1 < e2 ? n : sibling;
+                } else if (n.area() != sibling.area()) {
+                    target = n.area() < sibling.area() ? n : sibling;
+                } else {
+                    target = n.count <= sibling.count ? n : sibling;
+                }
+            }
+
+            add(target, b);
+            extend(target, b);
+            remaining--;
+        }
+
+        return sibling;
+    }
+
+    private static void add(Node n, Box child) {
+        n.children[n.count++] = child;
+        child.parent = n;
+    }
+
+    private static void removeChild(Node n, Box child) {
+        for (int i = 0; i < n.count; i++) {
+            if (n.children[i] == child) {
+                n.children[i] = n.children[--n.count];
+                n.children[n.count] = null;
+                child.parent = null;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Collects all leaf entries below n.
+     */
+    private static void collect(Node n, List<Entry> result) {
+        for (int i = 0; i < n.count; i++) {
+            if (n.leaf) {
+                result.add((Entry) n.children[i]);
+            } else {
+                collect((Node) n.children[i], result);
+            }
+        }
+    }
+
+    /**
+     * Recomputes the bounds of n from its children.
+     */
+    private static void recalculate(Node n) {
+        if (n.count == 0) {
+            n.x1 = n.y1 = n.x2 = n.y2 = 0;
+            return;
+        }
+
+        Box first = n.children[0];
+        n.x1 = first.x1;
+        n.y1 = first.y1;
+        n.x2 = first.x2;
+        n.y2 = first.y2;
+        for (int i = 1; i < n.count; i++) {
+            extend(n, n.children[i]);
+        }
+    }
+
+    private static void extend(Box target, Box b) {
+        target.x1 = Math.min(target.x1, b.x1);
+        target.y1 = Math.min(target.y1, b.y1);
+        target.x2 = Math.max(target.x2, b.x2);
+        target.y2 = Math.max(target.y2, b.y2);
+    }
+
+    private static long unionArea(Box a, Box b) {
+        return (long) (Math.max(a.x2, b.x2) - Math.min(a.x1, b.x1)) * (Math.max(a.y2, b.y2) - Math.min(a.y1, b.y1));
+    }
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.util.ArrayDeque;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import jdraw.framework.Figure;
+
+/**
+ * Ordered sequence of figures (back-to-front) with constant time membership checks and logarithmic
+ * insertion, removal, reordering and index lookup.
+ *
+ * The figures are stored in a treap which is ordered by a key per figure. Every node knows the size of
+ * its subtree, which makes rank and select queries possible. Keys are spread with a large gap so a figure
+ * can be moved between two others without touching the rest of the sequence; only if two neighbours run
+ * out of space in between, all keys are reassigned.
+ *
+ * The sequence can hand out snapshots in constant time. Nodes belong to a version; taking a snapshot
+ * starts a new version and nodes of older versions are never modified again but copied on the first
+ * change (path copying). A snapshot therefore shares all unchanged nodes with the sequence and only the
+ * changed paths cost memory.
+ */
+final class FigureSequence implements Iterable<Figure> {
+
+    /**
+     * Distance between the keys of two consecutive figures after appending or relabeling
+     */
+    private static final long GAP = 1L << 20;
+
+    /**
+     * A node of the treap
+     */
+    private static final class Node {
+        /** The stored figure */
+        private final Figure figure;
+        /** Heap priority, random */
+        private final int priority;
+        /** Version this node belongs to, only nodes of the current version may be modified */
+        private final int version;
+        /** Ordering key */
+        private long key;
+        /** Number of nodes in this subtree */
+        private int size = 1;
+        /** Children */
+        private Node left, right;
+
+        Node(Figure figure, int priority, int version) {
+            this.figure = figure;
+            this.priority = priority;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Index from figure (identity) to its node in the current tree
+     */
+    private final Map<Figure, Node> nodes = new IdentityHashMap<>();
+
+    /**
+     * Source of node priorities
+     */
+    private final Random random = new Random();
+
+    /**
+     * Root of the treap
+     */
+    private Node root;
+
+    /**
+     * Key for the next appended figure
+     */
+    private long nextKey = 0;
+
+    /**
+     * Current version, incremented by each snapshot
+     */
+    private int version = 0;
+
+    /**
+     * Structural modification counter, used to detect modifications during iteration
+     */
+    private int modCount = 0;
+
+    /**
+     * Result holders of split(), avoids allocating a pair on each split
+     */
+    private Node splitLeft, splitRight;
+
+    /**
+     * @param f a figure
+     * @return true if the figure is part of this sequence
+     */
+    boolean contains(Figure f) {
+        return nodes.containsKey(f);
+    }
+
+    /**
+     * @return number of figures
+     */
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Appends a figure at the end (front-most position).
+     * @param f a figure which is not yet contained
+     */
+    void add(Figure f) {
+        Node node = new Node(f, random.nextInt(), version);
+        node.key = nextKey;
+        nextKey += GAP;
+
+        nodes.put(f, node);
+        root = merge(root, node);
+        modCount++;
+    }
+
+    /**
+     * Removes a figure.
+     * @param f a figure which is contained
+     */
+    void remove(Figure f) {
+        Node node = nodes.remove(f);
+        root = remove(root, node.key);
+        modCount++;
+    }
+
+    /**
+     * Moves a figure to a new position.
+     * @param f a figure which is contained
+     * @param index the new position, 0 &lt;= index &lt; size()
+     */
+    void move(Figure f, int index) {
+        Node node = nodes.get(f);
+        root = remove(root, node.key);
+        node = mutable(node);
+        node.left = null;
+        node.right = null;
+        node.size = 1;
+
+        int n = size() - 1;
+        if (n > 0 && index > 0 && index < n && select(index).key - select(index - 1).key < 2) {
+            relabel();
+        }
+
+        if (n == 0) {
+            node.key = 0;
+        } else if (index == 0) {
+            node.key = select(0).key - GAP;
+        } else if (index == n) {
+            node.key = select(n - 1).key + GAP;
+        } else {
+            long lower = select(index - 1).key;
+            long upper = select(index).key;
+            node.key = lower + (upper - lower) / 2;
+        }
+        nextKey = Math.max(nextKey, node.key + GAP);
+
+        split(root, node.key);
+        root = merge(merge(splitLeft, node), splitRight);
+        splitLeft = null;
+        splitRight = null;
+        modCount++;
+    }
+
+    /**
+     * Returns the position of a figure.
+     * @param f a figure
+     * @return the index of f or -1 if f is not contained
+     */
+    int indexOf(Figure f) {
+        Node node = nodes.get(f);
+        if (node == null) {
+            return -1;
+        }
+
+        int index = 0;
+        Node t = root;
+        while (t != null) {
+            if (node.key < t.key) {
+                t = t.left;
+            } else {
+                index += size(t.left);
+                if (t == node) {
+                    return index;
+                }
+                index++;
+                t = t.right;
+            }
+        }
+        throw new IllegalStateException("Figure index is corrupt");
+    }
+
+    /**
+     * Returns the figure at the given position.
+     * @param index 0 &lt;= index &lt; size()
+     * @return the figure
+     */
+    Figure get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size());
+        }
+        return select(index).figure;
+    }
+
+    /**
+     * Removes all figures.
+     */
+    void clear() {
+        nodes.clear();
+        root = null;
+        nextKey = 0;
+        modCount++;
+    }
+
+    /**
+     * Returns the current figures in constant time. The snapshot is not affected by later changes of
+     * this sequence.
+     * @return the figures, back-to-front
+     */
+    Iterable<Figure> snapshot() {
+        Node frozen = root;
+        version++;
+        return () -> new NodeIterator(frozen) {
+            @Override
+            void checkForComodification() {
+                // snapshots never change
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Figure> iterator() {
+        return new NodeIterator(root);
+    }
+
+    /**
+     * In-order iterator over a tree.
+     */
+    private class NodeIterator implements Iterator<Figure> {
+        private final Deque<Node> stack = new ArrayDeque<>();
+        private final int expectedModCount = modCount;
+
+        NodeIterator(Node root) {
+            pushLeft(root);
+        }
+
+        private void pushLeft(Node t) {
+            while (t != null) {
+                stack.push(t);
+                t = t.left;
+            }
+        }
+
+        void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public Figure next() {
+            checkForComodification();
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node t = stack.pop();
+            pushLeft(t.right);
+            return t.figure;
+        }
+    }
+
+    /**
+     * Finds the node at the given position.
+     */
+    private Node select(int index) {
+        Node t = root;
+        while (true) {
+            int leftSize = size(t.left);
+            if (index < leftSize) {
+                t = t.left;
+            } else if (index == leftSize) {
+                return t;
+            } else {
+                index -= leftSize + 1;
+                t = t.right;
+            }
+        }
+    }
+
+    /**
+     * Reassigns all keys with the default gap. Keeps the tree shape since the order does not change.
+     */
+    private void relabel() {
+        nextKey = 0;
+        root = relabel(root);
+    }
+
+    private Node relabel(Node t) {
+        if (t == null) {
+            return null;
+        }
+
+        t = mutable(t);
+        t.left = relabel(t.left);
+        t.key = nextKey;
+        nextKey += GAP;
+        t.right = relabel(t.right);
+        return t;
+    }
+
+    /**
+     * Returns a node which may be modified: the node itself if it belongs to the current version,
+     * otherwise a copy which replaces it in the figure index. The caller must link the copy into the tree.
+     */
+    private Node mutable(Node t) {
+        if (t.version == version) {
+            return t;
+        }
+
+        Node copy = new Node(t.figure, t.priority, version);
+        copy.key = t.key;
+        copy.size = t.size;
+        copy.left = t.left;
+        copy.right = t.right;
+        nodes.put(t.figure, copy);
+        return copy;
+    }
+
+    /**
+     * Splits t into the nodes with a key lower than the given key (splitLeft) and the others (splitRight).
+     */
+    private void split(Node t, long key) {
+        if (t == null) {
+            splitLeft = null;
+            splitRight = null;
+            return;
+        }
+
+        t = mutable(t);
+        if (t.key < key) {
+            split(t.right, key);
+            t.right = splitLeft;
+            update(t);
+            splitLeft = t;
+        } else {
+            split(t.left, key);
+            t.left = splitRight;
+            update(t);
+            splitRight = t;
+        }
+    }
+
+    /**
+     * Merges two treaps, all keys in a must be lower than the keys in b.
+     */
+    private Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+
+        if (a.priority > b.priority) {
+            a = mutable(a);
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+
+        b = mutable(b);
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    /**
+     * Removes the node with the given key from the treap t.
+     */
+    private Node remove(Node t, long key) {
+        if (t.key == key) {
+            return merge(t.left, t.right);
+        }
+
+        t = mutable(t);
+        if (key < t.key) {
+            t.left = remove(t.left, key);
+        } else {
+            t.right = remove(t.right, key);
+        }
+        update(t);
+        return t;
+    }
+
+    private static int size(Node t) {
+        return t == null ? 0 : t.size;
+    }
+
+    private static void update(Node t) {
+        t.size = 1 + size(t.left) + size(t.right);
+    }
+}
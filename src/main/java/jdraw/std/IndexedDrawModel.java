@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jdraw.framework.Figure;
+
+/**
+ * Draw model for large drawings. Membership checks are done in constant time, removals and changes of
+ * the z-order in logarithmic time. The figures are still iterated in back-to-front order.
+ *
+ * @see FigureSequence
+ * @author Pascal Thormeier
+ */
+public class IndexedDrawModel extends AbstractDrawModel {
+
+    /**
+     * All figures, back-to-front
+     */
+    private final FigureSequence figures = new FigureSequence();
+
+    @Override
+    public Iterable<Figure> getFigures() {
+        return figures;
+    }
+
+    /**
+     * Returns the snapshot in constant time, see FigureSequence.snapshot.
+     */
+    @Override
+    public Iterable<Figure> getFigureSnapshot() {
+        return figures.snapshot();
+    }
+
+    @Override
+    public int indexOf(Figure f) {
+        return figures.indexOf(f);
+    }
+
+    @Override
+    public int[] indicesOf(List<Figure> candidates) {
+        int[] indices = new int[candidates.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = figures.indexOf(candidates.get(i));
+        }
+        return indices;
+    }
+
+    @Override
+    protected boolean containsFigure(Figure f) {
+        return figures.contains(f);
+    }
+
+    @Override
+    protected void appendFigure(Figure f) {
+        figures.add(f);
+    }
+
+    @Override
+    protected void detachFigure(Figure f) {
+        figures.remove(f);
+    }
+
+    @Override
+    protected void moveFigure(Figure f, int index) {
+        figures.move(f, index);
+    }
+
+    @Override
+    protected void clearFigures() {
+        figures.clear();
+    }
+
+    @Override
+    protected int getFigureCount() {
+        return figures.size();
+    }
+
+    /**
+     * Sorts by looking up the index of each figure, unless a large part of the drawing is affected anyway.
+     */
+    @Override
+    protected List<Figure> sortBackToFront(List<Figure> candidates) {
+        int k = candidates.size();
+        if (k <= 1 || k > figures.size() / 8) {
+            return super.sortBackToFront(candidates);
+        }
+
+        // pack index and position into one long to sort without boxing
+        long[] order = new long[k];
+        for (int i = 0; i < k; i++) {
+            order[i] = ((long) figures.indexOf(candidates.get(i)) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        List<Figure> sorted = new ArrayList<>(k);
+        for (long o : order) {
+            sorted.add(candidates.get((int) o));
+        }
+        return sorted;
+    }
+}
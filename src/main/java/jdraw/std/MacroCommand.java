@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jdraw.framework.DrawCommand;
+
+/**
+ * Combines the commands of a script to a single command.
+ * @author Pascal Thormeier
+ */
+class MacroCommand implements DrawCommand {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Memory used by the command itself and its list, without the elements. */
+    private static final long OVERHEAD = 48;
+
+    /** Memory used per element of the list. */
+    private static final long REFERENCE_SIZE = 8;
+
+    /** The commands, in the order they were added. */
+    private final List<DrawCommand> commands = new ArrayList<>();
+
+    /** Sum of the estimated sizes of the commands. */
+    private long size = OVERHEAD;
+
+    /**
+     * Appends a command, or merges it into the last command if possible.
+     * @param cmd the command to append
+     */
+    void add(DrawCommand cmd) {
+        if (!commands.isEmpty()) {
+            DrawCommand last = commands.get(commands.size() - 1);
+            long before = last.estimateSize();
+            if (last.mergeWith(cmd)) {
+                size += last.estimateSize() - before;
+                return;
+            }
+        }
+
+        commands.add(cmd);
+        size += cmd.estimateSize() + REFERENCE_SIZE;
+    }
+
+    /**
+     * @return the commands, in the order they were added
+     */
+    List<DrawCommand> getCommands() {
+        return commands;
+    }
+
+    /**
+     * Redoes all commands in the order they were added.
+     */
+    @Override
+    public void redo() {
+        for (DrawCommand cmd : commands) {
+            cmd.redo();
+        }
+    }
+
+    /**
+     * Undoes all commands in reverse order.
+     */
+    @Override
+    public void undo() {
+        for (int i = commands.size() - 1; i >= 0; i--) {
+            commands.get(i).undo();
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        return size;
+    }
+}
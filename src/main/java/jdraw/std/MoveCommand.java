@@ -51,5 +51,19 @@ public class MoveCommand implements DrawCommand {
         f.move(-xMovement, -yMovement);
     }
 
+    /**
+     * Accumulates a following move of the same figure.
+     */
+    @Override
+    public boolean mergeWith(DrawCommand next) {
+        if (!(next instanceof MoveCommand) || ((MoveCommand) next).f != f) {
+            return false;
+        }
+
+        xMovement += ((MoveCommand) next).xMovement;
+        yMovement += ((MoveCommand) next).yMovement;
+        return true;
+    }
+
 }
 
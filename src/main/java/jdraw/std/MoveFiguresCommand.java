@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.util.Collection;
+
+import jdraw.framework.DrawCommand;
+import jdraw.framework.Figure;
+
+/**
+ * Provides a command for moving a set of figures, e.g. the selection, by the same distance. Consecutive
+ * moves of the same figures are merged into one command.
+ * @author Pascal Thormeier
+ */
+public class MoveFiguresCommand implements DrawCommand {
+    private static final long serialVersionUID = 1L;
+
+    /** The figures being moved. */
+    private final Figure[] figures;
+
+    /** The amount of pixels that the figures are moved in horizontal direction. */
+    private int xMovement;
+
+    /** The amount of pixels that the figures are moved in vertical direction. */
+    private int yMovement;
+
+    /**
+     * @param figures the figures that were moved by this command.
+     * @param dx the number of pixels the figures were moved along the x-axis.
+     * @param dy the number of pixels the figures were moved along the y-axis.
+     */
+    public MoveFiguresCommand(Collection<Figure> figures, int dx, int dy) {
+        this.figures = figures.toArray(new Figure[figures.size()]);
+        this.xMovement = dx;
+        this.yMovement = dy;
+    }
+
+    /**
+     * Apply the stored movement again.
+     */
+    @Override
+    public void redo() {
+        for (Figure f : figures) {
+            f.move(xMovement, yMovement);
+        }
+    }
+
+    /**
+     * Undo the stored movement.
+     */
+    @Override
+    public void undo() {
+        for (Figure f : figures) {
+            f.move(-xMovement, -yMovement);
+        }
+    }
+
+    /**
+     * Accumulates a following move of the same figures.
+     */
+    @Override
+    public boolean mergeWith(DrawCommand next) {
+        if (!(next instanceof MoveFiguresCommand)) {
+            return false;
+        }
+
+        MoveFiguresCommand other = (MoveFiguresCommand) next;
+        if (other.figures.length != figures.length) {
+            return false;
+        }
+        for (int i = 0; i < figures.length; i++) {
+            if (other.figures[i] != figures[i]) {
+                return false;
+            }
+        }
+
+        xMovement += other.xMovement;
+        yMovement += other.yMovement;
+        return true;
+    }
+
+    @Override
+    public long estimateSize() {
+        return 40 + 16 + 8L * figures.length;
+    }
+}
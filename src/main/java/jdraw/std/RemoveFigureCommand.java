@@ -16,6 +16,9 @@ import jdraw.framework.Figure;
  * 
  */
 public class RemoveFigureCommand implements DrawCommand {
+    /** Estimated size of a simple figure with its shape, used for figures only the history refers to. */
+    static final long FIGURE_SIZE = 96;
+
     /** The model from which to remove the figure. */
     private final DrawModel model;
     /** The figure to remove. */
@@ -39,14 +42,7 @@ public class RemoveFigureCommand implements DrawCommand {
     public RemoveFigureCommand(DrawModel model, Figure figure) {
         this.model = model;
         this.figure = figure;
-        this.index = -1;
-        int n = 0;
-        for (Figure f : model.getFigures()) {
-            if (f == figure) {
-                index = n;
-            }
-            n++;
-        }
+        this.index = model.indexOf(figure);
         if (index == -1) {
             throw new IllegalArgumentException();
         }
@@ -74,4 +70,12 @@ public class RemoveFigureCommand implements DrawCommand {
         model.setFigureIndex(figure, index);
     }
 
+    /**
+     * Once the figure is removed, this command is what keeps it alive.
+     */
+    @Override
+    public long estimateSize() {
+        return 32 + FIGURE_SIZE;
+    }
+
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.util.Arrays;
+import java.util.List;
+
+import jdraw.framework.DrawCommand;
+import jdraw.framework.DrawModel;
+import jdraw.framework.Figure;
+
+/**
+ * Removes several figures from the drawing model, e.g. the selection. This removal can be undone, the
+ * figures are restored at their original positions.
+ * @author Pascal Thormeier
+ */
+public class RemoveFiguresCommand implements DrawCommand {
+    private static final long serialVersionUID = 1L;
+
+    /** The model from which to remove the figures. */
+    private final DrawModel model;
+
+    /** The figures to remove, sorted by index. */
+    private final Figure[] figures;
+
+    /** The index of each figure in the model. */
+    private final int[] indices;
+
+    /**
+     * Captures the indices of all figures with a single lookup.
+     *
+     * @param model the model from which to remove the figures.
+     * @param figures the figures to remove.
+     * @throws IllegalArgumentException if a figure is not contained in the model. This means, that the
+     *            RemoveFiguresCommand instance must be created BEFORE the figures are removed from the model.
+     */
+    public RemoveFiguresCommand(DrawModel model, List<Figure> figures) {
+        this.model = model;
+
+        int[] positions = model.indicesOf(figures);
+        // pack index and position into one long to sort without boxing
+        long[] order = new long[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            if (positions[i] == -1) {
+                throw new IllegalArgumentException("Figure not contained in model: " + figures.get(i));
+            }
+            order[i] = ((long) positions[i] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        this.figures = new Figure[order.length];
+        this.indices = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            this.figures[i] = figures.get((int) order[i]);
+            this.indices[i] = (int) (order[i] >>> 32);
+        }
+    }
+
+    /**
+     * Remove the figures from the model. Figures which were already removed are skipped.
+     */
+    @Override
+    public void redo() {
+        for (Figure f : figures) {
+            model.removeFigure(f);
+        }
+    }
+
+    /**
+     * Add the removed figures again. Restoring them by ascending index puts each one back at its original
+     * position, since all figures in front of it are in place already.
+     */
+    @Override
+    public void undo() {
+        for (int i = 0; i < figures.length; i++) {
+            model.addFigure(figures[i]);
+            model.setFigureIndex(figures[i], indices[i]);
+        }
+    }
+
+    /**
+     * Once the figures are removed, this command is what keeps them alive.
+     */
+    @Override
+    public long estimateSize() {
+        return 48 + 32 + (12 + RemoveFigureCommand.FIGURE_SIZE) * figures.length;
+    }
+}
@@ -5,14 +5,12 @@
 package jdraw.std;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.function.Consumer;
 
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFileChooser;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
@@ -23,6 +21,7 @@ import jdraw.figures.EllipseTool;
 import jdraw.figures.Group;
 import jdraw.figures.LineTool;
 import jdraw.figures.RectTool;
+import jdraw.framework.DrawCommand;
 import jdraw.framework.DrawCommandHandler;
 import jdraw.framework.DrawModel;
 import jdraw.framework.DrawTool;
@@ -32,7 +31,12 @@ import jdraw.framework.Figure;
 import jdraw.framework.FigureGroup;
 import jdraw.grid.Grid30;
 import jdraw.grid.SimpleGrid;
+import jdraw.grid.SmartSnapGrid;
 import jdraw.grid.SnapGrid;
+import jdraw.io.DrawingFormat;
+import jdraw.io.DrawingLoader;
+import jdraw.io.DrawingSaver;
+import jdraw.io.ImageExporter;
 
 /**
  * Standard implementation of interface DrawContext.
@@ -47,6 +51,21 @@ public class StdContext extends AbstractContext {
     private int numberOfPastes = 0;
     private String saveFilePath = "./saveFiles";
 
+    /**
+     * Loader of the drawing opened last, may still be running
+     */
+    private DrawingLoader loader;
+
+    /**
+     * Saver of the drawing saved last, may still be running
+     */
+    private DrawingSaver saver;
+
+    /**
+     * Exporter of the image exported last, may still be running
+     */
+    private ImageExporter exporter;
+
     /**
      * Constructs a standard context with a default set of drawing tools.
      * @param view the view that is displaying the actual drawing.
@@ -110,9 +129,15 @@ public class StdContext extends AbstractContext {
         JMenuItem cutItem = new JMenuItem("Cut");
         cutItem.setAccelerator(KeyStroke.getKeyStroke("control X"));
         cutItem.addActionListener(e -> {
+            DrawModel model = getModel();
+            DrawCommandHandler h = model.getDrawCommandHandler();
+            List<Figure> selection = getView().getSelection();
             clipboard = new LinkedList<>();
-            getView().getSelection().forEach(figure -> {
-                getModel().removeFigure(figure);
+            if (!selection.isEmpty()) {
+                h.addCommand(new RemoveFiguresCommand(model, selection));
+            }
+            selection.forEach(figure -> {
+                model.removeFigure(figure);
                 clipboard.add(figure.clone());
             });
             numberOfPastes = 0;
@@ -135,13 +160,18 @@ public class StdContext extends AbstractContext {
                 numberOfPastes++;
 
                 getView().clearSelection();
+                List<Figure> pasted = new LinkedList<>();
                 clipboard.forEach(figure -> {
                     Figure newFigure = figure.clone();
                     newFigure.move(5 * numberOfPastes, 5 * numberOfPastes);
 
                     getModel().addFigure(newFigure);
                     getView().addToSelection(newFigure);
+                    pasted.add(newFigure);
                 });
+                if (!pasted.isEmpty()) {
+                    getModel().getDrawCommandHandler().addCommand(new AddFiguresCommand(getModel(), pasted));
+                }
             }
         });
         editMenu.add(pasteItem);
@@ -150,16 +180,33 @@ public class StdContext extends AbstractContext {
         JMenuItem clear = new JMenuItem("Clear");
         editMenu.add(clear);
         clear.addActionListener(e -> {
+            if (!getModel().getFigures().iterator().hasNext()) {
+                // nothing to remove, an empty undo step would only confuse
+                return;
+            }
+            DrawCommand cmd = new ClearCommand(getModel());
             getModel().removeAllFigures();
+            getModel().getDrawCommandHandler().addCommand(cmd);
         });
 
         editMenu.addSeparator();
         JMenuItem group = new JMenuItem("Group");
         group.addActionListener(e -> {
-            Group groupFigure = new Group(getView().getSelection());
+            List<Figure> parts = getView().getSelection();
+            if (parts.isEmpty()) {
+                return;
+            }
+
+            DrawModel model = getModel();
+            DrawCommandHandler h = model.getDrawCommandHandler();
+            h.beginScript();
+            h.addCommand(new RemoveFiguresCommand(model, parts));
+            parts.forEach(model::removeFigure);
 
-            getModel().addFigure(groupFigure);
-            getView().getSelection().forEach(figure -> getModel().removeFigure(figure));
+            Group groupFigure = new Group(new LinkedList<>(parts));
+            model.addFigure(groupFigure);
+            h.addCommand(new AddFiguresCommand(model, Collections.singletonList(groupFigure)));
+            h.endScript();
 
             getView().addToSelection(groupFigure);
         });
@@ -168,17 +215,28 @@ public class StdContext extends AbstractContext {
         JMenuItem ungroup = new JMenuItem("Ungroup");
         ungroup.addActionListener(e -> {
             LinkedList<Figure> selectionCopy = new LinkedList<>(getView().getSelection());
+            DrawModel model = getModel();
+            DrawCommandHandler h = model.getDrawCommandHandler();
 
+            h.beginScript();
             selectionCopy.forEach(figure -> {
                 if (figure instanceof FigureGroup) {
+                    List<Figure> parts = new LinkedList<>();
                     ((Group) figure).getFigureParts().forEach(figurePart -> {
-                        getModel().addFigure(figurePart);
+                        model.addFigure(figurePart);
                         getView().addToSelection(figurePart);
+                        parts.add(figurePart);
                     });
+                    h.addCommand(new AddFiguresCommand(model, parts));
+
+                    h.addCommand(new RemoveFigureCommand(model, figure));
+                    model.removeFigure(figure);
 
-                    getModel().removeFigure(figure);
+                    h.addCommand(new UngroupCommand((Group) figure));
+                    ((Group) figure).releaseParts();
                 }
             });
+            h.endScript();
         });
         ungroup.setEnabled(true);
         editMenu.add(ungroup);
@@ -205,12 +263,23 @@ public class StdContext extends AbstractContext {
         JMenuItem gridSnapItem = new JMenuItem("Snap");
         gridSnapItem.addActionListener(e -> getView().setConstrainer(new SnapGrid(getView())));
 
+        JMenuItem gridSmartSnapItem = new JMenuItem("Smart snap");
+        gridSmartSnapItem.addActionListener(e -> getView().setConstrainer(new SmartSnapGrid(getView())));
+
         gridMenu.add(noGridItem);
         gridMenu.add(grid30Item);
         gridMenu.add(gridSnapItem);
+        gridMenu.add(gridSmartSnapItem);
 
         editMenu.add(gridMenu);
 
+        if (getView() instanceof StdDrawView) {
+            StdDrawView view = (StdDrawView) getView();
+            JCheckBoxMenuItem tileCacheItem = new JCheckBoxMenuItem("Tile cache", view.isTileCacheEnabled());
+            tileCacheItem.addActionListener(e -> view.setTileCacheEnabled(tileCacheItem.isSelected()));
+            editMenu.add(tileCacheItem);
+        }
+
         return editMenu;
     }
 
@@ -222,6 +291,11 @@ public class StdContext extends AbstractContext {
     @Override
     protected JMenu createFileMenu() {
       JMenu fileMenu = new JMenu("File");
+        JMenuItem newItem = new JMenuItem("New");
+        fileMenu.add(newItem);
+        newItem.setAccelerator(KeyStroke.getKeyStroke("control N"));
+        newItem.addActionListener(e -> doNew());
+
         JMenuItem open = new JMenuItem("Open");
         fileMenu.add(open);
         open.setAccelerator(KeyStroke.getKeyStroke("control O"));
@@ -232,6 +306,10 @@ public class StdContext extends AbstractContext {
         fileMenu.add(save);
         save.addActionListener(e ->    doSave());
 
+        JMenuItem export = new JMenuItem("Export PNG");
+        fileMenu.add(export);
+        export.addActionListener(e -> doExport());
+
         JMenuItem exit = new JMenuItem("Exit");
         fileMenu.add(exit);
         exit.addActionListener(e -> System.exit(0));
@@ -293,6 +371,64 @@ public class StdContext extends AbstractContext {
         }
     }
 
+    /**
+     * Starts a new, empty drawing in a model. Besides the figures the undo history is discarded as well:
+     * its commands refer to figures of the old drawing and must not be replayed against the new one.
+     * @param model the model to clear
+     */
+    public static void newDrawing(DrawModel model) {
+        model.removeAllFigures();
+        model.getDrawCommandHandler().clearHistory();
+    }
+
+    /**
+     * Replaces the drawing by an empty one, cancelling a drawing which is still being loaded.
+     */
+    private void doNew() {
+        if (loader != null) {
+            loader.cancel(true);
+            loader = null;
+        }
+        newDrawing(getModel());
+    }
+
+    /**
+     * Exports the drawing as PNG image.
+     */
+    private void doExport() {
+        JFileChooser chooser = new JFileChooser(saveFilePath);
+        chooser.setDialogTitle("Export PNG");
+        chooser.setDialogType(JFileChooser.SAVE_DIALOG);
+        FileFilter filter = new FileFilter() {
+            @Override
+            public String getDescription() {
+                return "PNG Image (*.png)";
+            }
+
+            @Override
+            public boolean accept(File f) {
+                return f.isDirectory() || f.getName().endsWith(ImageExporter.EXTENSION);
+            }
+        };
+        chooser.setFileFilter(filter);
+        int res = chooser.showSaveDialog(this);
+
+        if (res == JFileChooser.APPROVE_OPTION) {
+            File file = chooser.getSelectedFile();
+            if (chooser.getFileFilter() == filter && !filter.accept(file)) {
+                file = new File(chooser.getCurrentDirectory(), file.getName() + ImageExporter.EXTENSION);
+            }
+
+            if (exporter != null && !exporter.isDone()) {
+                showStatusText("Still exporting, try again later");
+                return;
+            }
+
+            exporter = new ImageExporter(this, file.toPath());
+            exporter.execute();
+        }
+    }
+
     /**
      * Handles the saving of a drawing to a file.
      */
@@ -308,7 +444,7 @@ public class StdContext extends AbstractContext {
 
             @Override
             public boolean accept(File f) {
-                return f.getName().endsWith(".draw");
+                return f.getName().endsWith(DrawingFormat.EXTENSION);
             }
         };
         chooser.setFileFilter(filter);
@@ -318,23 +454,18 @@ public class StdContext extends AbstractContext {
             // save graphic
             File file = chooser.getSelectedFile();
             if (chooser.getFileFilter() == filter && !filter.accept(file)) {
-                file = new File(chooser.getCurrentDirectory(), file.getName() + ".draw");
+                file = new File(chooser.getCurrentDirectory(), file.getName() + DrawingFormat.EXTENSION);
             }
 
             System.out.println("save current graphic to file " + file.getName());
 
-            List<Figure> saveFigures = new LinkedList<>();
-            getModel().getFigures().forEach(figure -> saveFigures.add(figure.clone()));
-
-            try {
-                FileOutputStream fileOut = new FileOutputStream(file.getAbsolutePath());
-                ObjectOutputStream out = new ObjectOutputStream(fileOut);
-                out.writeObject(saveFigures);
-                out.close();
-                fileOut.close();
-            } catch (Exception e) {
-                System.out.println(e.getMessage());
+            if (saver != null && !saver.isDone()) {
+                showStatusText("Still saving, try again later");
+                return;
             }
+
+            saver = new DrawingSaver(this, file.toPath());
+            saver.execute();
         }
     }
 
@@ -353,7 +484,7 @@ public class StdContext extends AbstractContext {
 
             @Override
             public boolean accept(File f) {
-                return f.isDirectory() || f.getName().endsWith(".draw");
+                return f.isDirectory() || f.getName().endsWith(DrawingFormat.EXTENSION);
             }
         });
         int res = chooser.showOpenDialog(this);
@@ -363,18 +494,9 @@ public class StdContext extends AbstractContext {
             System.out.println("read file "
                     + chooser.getSelectedFile().getName());
 
-            try {
-                FileInputStream fileIn = new FileInputStream(chooser.getSelectedFile().getAbsolutePath());
-                ObjectInputStream in = new ObjectInputStream(fileIn);
-                List<Figure> loadedFigures = (LinkedList<Figure>) in.readObject();
-                in.close();
-                fileIn.close();
-
-                getModel().removeAllFigures();
-                loadedFigures.forEach(figure -> getModel().addFigure(figure));
-            } catch (Exception e) {
-                System.out.println(e.getMessage());
-            }
+            doNew();
+            loader = new DrawingLoader(this, chooser.getSelectedFile().toPath());
+            loader.execute();
         }
     }
 
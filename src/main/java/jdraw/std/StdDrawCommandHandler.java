@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import jdraw.framework.DrawCommand;
+import jdraw.framework.DrawCommandHandler;
+
+/**
+ * Command history with undo and redo. Scripts may be nested, each script is stored as a single macro
+ * command in the enclosing script or the history.
+ *
+ * The memory retained by the history is limited by a budget in bytes, based on the size estimates of
+ * the commands (see DrawCommand.estimateSize). When a new command exceeds the budget, the oldest
+ * commands are discarded; the most recent command is always kept.
+ * @author Pascal Thormeier
+ */
+public class StdDrawCommandHandler implements DrawCommandHandler {
+
+    /** Default memory budget: 16 MB. */
+    public static final long DEFAULT_MEMORY_BUDGET = 16L << 20;
+
+    /** Memory used by the history per stored command, in addition to the command itself. */
+    private static final long ENTRY_OVERHEAD = 32;
+
+    /**
+     * A command in the history together with the size it was accounted with.
+     */
+    private static final class Entry {
+        private final DrawCommand command;
+        private final long size;
+
+        Entry(DrawCommand command) {
+            this.command = command;
+            this.size = command.estimateSize() + ENTRY_OVERHEAD;
+        }
+    }
+
+    /** Commands which can be undone, the most recent one last. */
+    private final Deque<Entry> undoStack = new ArrayDeque<>();
+
+    /** Commands which can be redone, the next one last. */
+    private final Deque<Entry> redoStack = new ArrayDeque<>();
+
+    /** Open scripts, the innermost one last. */
+    private final Deque<MacroCommand> scripts = new ArrayDeque<>();
+
+    /** Estimated memory retained by undoStack and redoStack. */
+    private long historySize = 0;
+
+    /** Maximum memory the history may retain. */
+    private long memoryBudget;
+
+    /**
+     * Creates a handler with the default memory budget.
+     */
+    public StdDrawCommandHandler() {
+        this(DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * Creates a handler with the given memory budget.
+     * @param memoryBudget maximum memory in bytes the history may retain
+     */
+    public StdDrawCommandHandler(long memoryBudget) {
+        setMemoryBudget(memoryBudget);
+    }
+
+    /**
+     * @return maximum memory in bytes the history may retain
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Changes the memory budget. Discards the oldest commands if the history exceeds the new budget.
+     * @param memoryBudget maximum memory in bytes the history may retain
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("memory budget must not be negative: " + memoryBudget);
+        }
+
+        this.memoryBudget = memoryBudget;
+        evict();
+    }
+
+    /**
+     * @return estimated memory in bytes retained by the history
+     */
+    public long getHistorySize() {
+        return historySize;
+    }
+
+    @Override
+    public void addCommand(DrawCommand cmd) {
+        if (!scripts.isEmpty()) {
+            scripts.peekLast().add(cmd);
+            return;
+        }
+
+        for (Entry e : redoStack) {
+            historySize -= e.size;
+        }
+        redoStack.clear();
+
+        push(undoStack, new Entry(cmd));
+        evict();
+    }
+
+    @Override
+    public void undo() {
+        checkNoScript();
+        Entry e = undoStack.pollLast();
+        if (e == null) {
+            return;
+        }
+
+        e.command.undo();
+        redoStack.addLast(e);
+    }
+
+    @Override
+    public void redo() {
+        checkNoScript();
+        Entry e = redoStack.pollLast();
+        if (e == null) {
+            return;
+        }
+
+        e.command.redo();
+        undoStack.addLast(e);
+    }
+
+    @Override
+    public boolean undoPossible() {
+        return scripts.isEmpty() && !undoStack.isEmpty();
+    }
+
+    @Override
+    public boolean redoPossible() {
+        return scripts.isEmpty() && !redoStack.isEmpty();
+    }
+
+    @Override
+    public void beginScript() {
+        scripts.addLast(new MacroCommand());
+    }
+
+    @Override
+    public void endScript() {
+        MacroCommand script = scripts.pollLast();
+        if (script == null) {
+            throw new IllegalStateException("no script open");
+        }
+
+        switch (script.getCommands().size()) {
+        case 0:
+            break;
+        case 1:
+            addCommand(script.getCommands().get(0));
+            break;
+        default:
+            addCommand(script);
+        }
+    }
+
+    @Override
+    public void clearHistory() {
+        undoStack.clear();
+        redoStack.clear();
+        historySize = 0;
+    }
+
+    private void push(Deque<Entry> stack, Entry e) {
+        stack.addLast(e);
+        historySize += e.size;
+    }
+
+    /**
+     * Discards the oldest commands until the history fits into the budget. Redoable commands are only
+     * discarded if nothing can be undone anymore, starting with the one that would be redone last.
+     */
+    private void evict() {
+        while (historySize > memoryBudget && undoStack.size() + redoStack.size() > 1) {
+            Entry e = undoStack.isEmpty() ? redoStack.pollFirst() : undoStack.pollFirst();
+            historySize -= e.size;
+        }
+    }
+
+    private void checkNoScript() {
+        if (!scripts.isEmpty()) {
+            throw new IllegalStateException("undo and redo are not possible while a script is open");
+        }
+    }
+}
@@ -16,11 +16,16 @@ import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
 
 import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
 
 import jdraw.framework.DrawContext;
 import jdraw.framework.DrawModel;
@@ -30,6 +35,8 @@ import jdraw.framework.DrawView;
 import jdraw.framework.Figure;
 import jdraw.framework.FigureHandle;
 import jdraw.framework.PointConstrainer;
+import jdraw.grid.SmartSnapGrid;
+import jdraw.io.TileRenderer;
 
 /**
  * Standard implementation of interface DrawView.
@@ -42,6 +49,22 @@ public final class StdDrawView extends JComponent implements DrawView {
     /** Space in pixels around the minimal bounding box of all figures. */
     private static final int BOUNDING_BOX_PADDING = 10;
 
+    /**
+     * Space in pixels around the bounds of a figure which is repainted when the figure changes. Covers
+     * the handles of selected figures and the outline of the figure.
+     */
+    private static final int DAMAGE_PADDING = 5;
+
+    /**
+     * Color of the snapping feedback
+     */
+    private static final Color SNAP_COLOR = new Color(0, 120, 215);
+
+    /**
+     * Radius of the circle marking the snap target
+     */
+    private static final int SNAP_MARK_RADIUS = 4;
+
     /**
      * The view's model.
      */
@@ -58,20 +81,59 @@ public final class StdDrawView extends JComponent implements DrawView {
     private PointConstrainer constrainer;
 
     /**
-     * The view's selection.
+     * The view's selection in the order of selection, together with the handles of each selected figure.
+     */
+    private Map<Figure, List<FigureHandle>> selection = new LinkedHashMap<>();
+
+    /**
+     * Read-only snapshot of the selection handed out by getSelection, null if the selection changed since.
      */
-    private List<Figure> selection = new LinkedList<>();
+    private SelectionSnapshot selectionSnapshot;
 
     /**
-     * The handles occuring in this view.
+     * Incremented with every change of the selection, see SelectionSnapshot.
      */
-    private List<FigureHandle> handles = new LinkedList<>();
+    private int selectionVersion = 0;
+
+    /**
+     * Area affected by selection changes which is not yet repainted, see damageSelection.
+     */
+    private Rectangle selectionDamage;
 
     /**
      * Send changes to this listener.
      */
     private DrawModelListener ml;
 
+    /**
+     * Right edge of the drawing, i.e. the maximum of 0 and the right edges of all figures. Only valid
+     * if extentValid is set.
+     */
+    private int extentRight;
+
+    /**
+     * Bottom edge of the drawing, analogous to extentRight.
+     */
+    private int extentBottom;
+
+    /**
+     * Indicates whether extentRight and extentBottom are up to date. The extent is updated with each
+     * model event; it only has to be recomputed from all figures if a figure on its boundary shrinks
+     * or is removed.
+     */
+    private boolean extentValid = false;
+
+    /**
+     * Cache of the rendered figures, i.e. the figure layer; null if the figures are drawn directly on each
+     * paint. On by default and bounded to TileCache.DEFAULT_MAX_BYTES, see setTileCacheEnabled.
+     */
+    private TileCache tileCache;
+
+    /**
+     * Renders tiles in parallel to warm up the tile cache, created with the cache
+     */
+    private TileRenderer tileRenderer;
+
     /**
      * Indicates whether a mouse interaction is active. If dragging > 0 then
      * moving/deleting figures over the keyboard is disabled. Type
@@ -80,6 +142,13 @@ public final class StdDrawView extends JComponent implements DrawView {
      */
     private int dragging = 0;
 
+    /**
+     * Indicates whether the current mouse interaction was started with button 1, i.e. whether the tool
+     * got mouseDown and a script was opened. Both are finished when the last button is released,
+     * whichever button that is.
+     */
+    private boolean scriptOpen = false;
+
     /**
      * Creates a new StdDrawView.
      *
@@ -89,13 +158,15 @@ public final class StdDrawView extends JComponent implements DrawView {
     public StdDrawView(DrawModel aModel) {
 
         this.model = aModel;
+        this.tileCache = new TileCache(model, TileCache.DEFAULT_MAX_BYTES);
+        this.tileRenderer = new TileRenderer();
 
         ml = new DrawModelListener() {
             @Override
             public void modelChanged(DrawModelEvent e) {
-                Dimension size = getPreferredSize();
-                setPreferredSize(size);
-                revalidate();
+                if (updateExtent(e)) {
+                    revalidate();
+                }
 
                 if (e.getType() == DrawModelEvent.Type.FIGURE_REMOVED) {
                     removeFromSelection(e.getFigure());
@@ -103,15 +174,15 @@ public final class StdDrawView extends JComponent implements DrawView {
                 if (e.getType() == DrawModelEvent.Type.DRAWING_CLEARED) {
                     clearSelection();
                 }
+                if (tileCache != null) {
+                    tileCache.invalidate(e.getRegion());
+                }
 
-//                if(e.getType() == DrawModelEvent.Type.FIGURE_ADDED
-//                 || e.getType() == DrawModelEvent.Type.FIGURE_REMOVED
-//                ) {
-//                    repaint(e.getFigure().getBounds());
-//                } else {
-//                    repaint();
-//                }
-                repaint();
+                if (e.getRegion() != null) {
+                    repaintRegion(e.getRegion());
+                } else {
+                    repaint();
+                }
             }
         };
 
@@ -145,6 +216,7 @@ public final class StdDrawView extends JComponent implements DrawView {
         if (this.constrainer != null) {
             this.constrainer.activate();
         }
+        showSnapFeedback(false);
     }
 
     @Override
@@ -171,25 +243,116 @@ public final class StdDrawView extends JComponent implements DrawView {
         if (constrainer != null) {
             if (mode == 1) { constrainer.mouseDown(); }
             if (mode == 2) { constrainer.mouseUp(); }
-            return constrainer.constrainPoint(p);
+            Point constrained = constrainer.constrainPoint(p);
+            showSnapFeedback(mode != 2 || dragging > 0);
+            return constrained;
         }
         return p;
     }
 
+    /**
+     * Takes the snapping feedback of the last constrained point from the constrainer if it is a
+     * SmartSnapGrid and repaints the parts of the overlay which changed.
+     * @param show false to remove the feedback, e.g. once the mouse is released
+     */
+    private void showSnapFeedback(boolean show) {
+        Point target = null;
+        int x = SmartSnapGrid.NO_GUIDE;
+        int y = SmartSnapGrid.NO_GUIDE;
+        if (show && constrainer instanceof SmartSnapGrid) {
+            SmartSnapGrid grid = (SmartSnapGrid) constrainer;
+            target = grid.getSnapTarget();
+            x = grid.getGuideX();
+            y = grid.getGuideY();
+        }
+
+        if (!Objects.equals(target, snapTarget)) {
+            repaintSnapTarget(snapTarget);
+            snapTarget = target;
+            repaintSnapTarget(target);
+        }
+        if (x != guideX) {
+            if (guideX != SmartSnapGrid.NO_GUIDE) {
+                repaint(guideX, 0, 1, getHeight());
+            }
+            guideX = x;
+            if (x != SmartSnapGrid.NO_GUIDE) {
+                repaint(x, 0, 1, getHeight());
+            }
+        }
+        if (y != guideY) {
+            if (guideY != SmartSnapGrid.NO_GUIDE) {
+                repaint(0, guideY, getWidth(), 1);
+            }
+            guideY = y;
+            if (y != SmartSnapGrid.NO_GUIDE) {
+                repaint(0, y, getWidth(), 1);
+            }
+        }
+    }
+
+    private void repaintSnapTarget(Point target) {
+        if (target != null) {
+            repaint(target.x - SNAP_MARK_RADIUS, target.y - SNAP_MARK_RADIUS,
+                    2 * SNAP_MARK_RADIUS + 1, 2 * SNAP_MARK_RADIUS + 1);
+        }
+    }
+
     @Override
     public void paint(Graphics g) {
         super.paint(g);
     }
 
+    /**
+     * Repaints the given area of the drawing including the space needed by handles around it.
+     * @param r area to repaint
+     */
+    private void repaintRegion(Rectangle r) {
+        repaint(r.x - DAMAGE_PADDING, r.y - DAMAGE_PADDING,
+                r.width + 2 * DAMAGE_PADDING, r.height + 2 * DAMAGE_PADDING);
+    }
+
     @Override
     public void paintComponent(Graphics g) {
         // g.setColor(getBackground());
         // g.fillRect(0, 0, getWidth(), getHeight());
-        for (Figure f : model.getFigures()) {
+        Rectangle clip = g.getClipBounds();
+        paintFigures(g, clip);
+        paintOverlay(g, clip);
+    }
+
+    /**
+     * Paints the figure layer, from the tile cache if it is on.
+     * @param g the graphics to paint on
+     * @param clip the area to paint, null for everything
+     */
+    private void paintFigures(Graphics g, Rectangle clip) {
+        if (tileCache != null) {
+            tileCache.paint(g, clip != null ? clip : new Rectangle(0, 0, getWidth(), getHeight()));
+            return;
+        }
+
+        Iterable<Figure> figures = clip == null ? model.getFigures() : model.getFiguresIntersecting(clip);
+        for (Figure f : figures) {
             f.draw(g);
         }
-        for (FigureHandle fh : handles) {
-            fh.draw(g);
+    }
+
+    /**
+     * Paints the overlay on top of the figure layer: the handles of the selected figures, the rubber band
+     * and the snapping feedback. The overlay is not cached, changes of it only repaint the affected area, which takes the
+     * figures from the cached figure layer.
+     * @param g the graphics to paint on
+     * @param clip the area to paint, null for everything
+     */
+    private void paintOverlay(Graphics g, Rectangle clip) {
+        Point location = new Point();
+        for (List<FigureHandle> handles : selection.values()) {
+            for (FigureHandle fh : handles) {
+                if (clip == null || isNear(fh.getLocation(location), clip)) {
+                    fh.draw(g);
+                }
+            }
         }
 
         if (selectionRectangle != null) {
@@ -197,49 +360,165 @@ public final class StdDrawView extends JComponent implements DrawView {
             g.drawRect(selectionRectangle.x, selectionRectangle.y,
                     selectionRectangle.width, selectionRectangle.height);
         }
+
+        if (snapTarget != null || guideX != SmartSnapGrid.NO_GUIDE || guideY != SmartSnapGrid.NO_GUIDE) {
+            g.setColor(SNAP_COLOR);
+            if (guideX != SmartSnapGrid.NO_GUIDE) {
+                g.drawLine(guideX, 0, guideX, getHeight());
+            }
+            if (guideY != SmartSnapGrid.NO_GUIDE) {
+                g.drawLine(0, guideY, getWidth(), guideY);
+            }
+            if (snapTarget != null) {
+                g.drawOval(snapTarget.x - SNAP_MARK_RADIUS, snapTarget.y - SNAP_MARK_RADIUS,
+                        2 * SNAP_MARK_RADIUS, 2 * SNAP_MARK_RADIUS);
+            }
+        }
+    }
+
+    /**
+     * Turns the tile cache on or off. With the cache, the figures are rendered into tiles which are
+     * copied on repaint and only rendered again after a figure within them changed; the handles and the
+     * rubber band are still drawn directly on top. The cache is on by default; it holds at most 32 MB of
+     * tiles, dropping the least recently painted ones first.
+     * @param enabled true to use the cache
+     */
+    public void setTileCacheEnabled(boolean enabled) {
+        if (enabled == (tileCache != null)) {
+            return;
+        }
+        if (enabled) {
+            tileCache = new TileCache(model, TileCache.DEFAULT_MAX_BYTES);
+            tileRenderer = new TileRenderer();
+            warmUpTileCache(getVisibleRect());
+        } else {
+            tileCache = null;
+            tileRenderer = null;
+        }
+        repaint();
+    }
+
+    /**
+     * Renders the tiles of an area which are not cached yet, using all cores. Does nothing if the tile
+     * cache is off.
+     * @param area the area, e.g. the visible part of the view
+     */
+    public void warmUpTileCache(Rectangle area) {
+        if (tileCache != null) {
+            tileCache.warmUp(area, tileRenderer);
+        }
+    }
+
+    /**
+     * @return true if the figures are painted through the tile cache
+     */
+    public boolean isTileCacheEnabled() {
+        return tileCache != null;
+    }
+
+    /**
+     * Checks whether a point lies within the given rectangle, extended by the damage padding.
+     * @param p the point to check
+     * @param r the rectangle
+     * @return true if the point is within the extended rectangle
+     */
+    private static boolean isNear(Point p, Rectangle r) {
+        return p.x >= r.x - DAMAGE_PADDING && p.x <= r.x + r.width + DAMAGE_PADDING
+            && p.y >= r.y - DAMAGE_PADDING && p.y <= r.y + r.height + DAMAGE_PADDING;
     }
 
     // Selection
     // =========
+    /**
+     * Returns a read-only list of the selected figures. The list is only created again after the
+     * selection changed, and it answers contains in constant time as long as it is up to date.
+     */
     @Override
     public List<Figure> getSelection() {
-        return new LinkedList<>(selection);
+        if (selectionSnapshot == null) {
+            selectionSnapshot = new SelectionSnapshot(selection.keySet().toArray(new Figure[selection.size()]));
+        }
+        return selectionSnapshot;
+    }
+
+    /**
+     * Repaints the area of a selected or deselected figure. The areas of all changes made during the
+     * current event are united into a single repaint request, so selecting many figures at once does not
+     * post a request per figure.
+     * @param r area to repaint
+     */
+    private void damageSelection(Rectangle r) {
+        if (selectionDamage != null) {
+            selectionDamage.add(r);
+            return;
+        }
+
+        selectionDamage = new Rectangle(r);
+        SwingUtilities.invokeLater(() -> {
+            Rectangle damaged = selectionDamage;
+            selectionDamage = null;
+            repaintRegion(damaged);
+        });
+    }
+
+    /**
+     * Records a change of the selection.
+     */
+    private void selectionChanged() {
+        selectionVersion++;
+        selectionSnapshot = null;
     }
 
     @Override
     public void clearSelection() {
+        if (selection.isEmpty()) {
+            return;
+        }
+
+        Rectangle damaged = null;
+        for (Figure f : selection.keySet()) {
+            if (damaged == null) {
+                damaged = f.getBounds();
+            } else {
+                damaged.add(f.getBounds());
+            }
+        }
+
         selection.clear();
-        handles.clear();
+        selectionChanged();
+        repaintRegion(damaged);
     }
 
     @Override
     public void addToSelection(Figure f) {
         context.setDefaultTool();
-        if (!selection.contains(f)) {
-            selection.add(f);
+        if (!selection.containsKey(f)) {
             List<FigureHandle> hList = f.getHandles();
-            if (hList != null) {
-                handles.addAll(hList);
-            }
+            selection.put(f, hList != null ? hList : Collections.emptyList());
+            selectionChanged();
+            damageSelection(f.getBounds());
         }
     }
 
     @Override
     public void removeFromSelection(Figure f) {
-        if (selection.remove(f)) {
-            Iterator<FigureHandle> it = handles.iterator();
-            while (it.hasNext()) {
-                FigureHandle h = it.next();
-                if (h.getOwner() == f) {
-                    it.remove();
-                }
-            }
+        if (selection.remove(f) != null) {
+            selectionChanged();
+            damageSelection(f.getBounds());
         }
     }
 
     /** Selection rectangle. */
     private Rectangle selectionRectangle;
 
+    /**
+     * Snapping feedback of a SmartSnapGrid, shown in the overlay while the mouse is pressed: the target the
+     * mouse snapped to, null if none, and the guides it was aligned with, SmartSnapGrid.NO_GUIDE if none.
+     */
+    private Point snapTarget;
+    private int guideX = SmartSnapGrid.NO_GUIDE;
+    private int guideY = SmartSnapGrid.NO_GUIDE;
+
     /**
      * Set the selection rectangle.
      *
@@ -248,7 +527,31 @@ public final class StdDrawView extends JComponent implements DrawView {
      */
     @Override
     public void setSelectionRubberBand(Rectangle selRectangle) {
+        Rectangle previous = this.selectionRectangle;
         this.selectionRectangle = selRectangle;
+        if (previous != null) {
+            repaintOutline(previous);
+        }
+        if (selRectangle != null) {
+            repaintOutline(selRectangle);
+        }
+    }
+
+    /**
+     * Repaints the outline of a rectangle as drawn by drawRect, e.g. of the rubber band. The sides are
+     * painted right away one by one, since the repaint manager would unite them into the whole rectangle.
+     * @param r the rectangle
+     */
+    private void repaintOutline(Rectangle r) {
+        if (!isShowing() || r.width < 2 || r.height < 2) {
+            repaint(r.x, r.y, r.width + 1, r.height + 1);
+            return;
+        }
+
+        paintImmediately(r.x, r.y, r.width + 1, 1);
+        paintImmediately(r.x, r.y + r.height, r.width + 1, 1);
+        paintImmediately(r.x, r.y + 1, 1, r.height - 1);
+        paintImmediately(r.x + r.width, r.y + 1, 1, r.height - 1);
     }
 
     // Size
@@ -260,22 +563,86 @@ public final class StdDrawView extends JComponent implements DrawView {
 
     @Override
     public Dimension getPreferredSize() {
-        java.awt.Rectangle r = new java.awt.Rectangle();
-        for (Figure f : model.getFigures()) {
-            r.add(f.getBounds());
+        if (!extentValid) {
+            extentRight = 0;
+            extentBottom = 0;
+            for (Figure f : model.getFigures()) {
+                Rectangle r = f.getBounds();
+                extentRight = Math.max(extentRight, r.x + r.width);
+                extentBottom = Math.max(extentBottom, r.y + r.height);
+            }
+            extentValid = true;
         }
 
-        Dimension size = new Dimension();
-        size.height = r.height + r.y + BOUNDING_BOX_PADDING;
-        size.width = r.width + r.x + BOUNDING_BOX_PADDING;
-        return size;
+        return new Dimension(extentRight + BOUNDING_BOX_PADDING, extentBottom + BOUNDING_BOX_PADDING);
+    }
+
+    /**
+     * Updates the cached extent of the drawing according to a model event. If a figure on the boundary of
+     * the drawing shrinks or disappears, the extent is only invalidated and recomputed lazily.
+     *
+     * @param e the model event
+     * @return true if the extent changed or has to be recomputed
+     */
+    private boolean updateExtent(DrawModelEvent e) {
+        if (e.getType() == DrawModelEvent.Type.DRAWING_CLEARED) {
+            boolean changed = !extentValid || extentRight != 0 || extentBottom != 0;
+            extentRight = 0;
+            extentBottom = 0;
+            extentValid = true;
+            return changed;
+        }
+
+        if (!extentValid) {
+            return false;
+        }
+
+        Rectangle region = e.getRegion();
+        if (region == null) {
+            extentValid = false;
+            return true;
+        }
+
+        int oldRight = extentRight;
+        int oldBottom = extentBottom;
+        if (e.getType() == DrawModelEvent.Type.FIGURE_REMOVED) {
+            if (region.x + region.width >= extentRight || region.y + region.height >= extentBottom) {
+                extentValid = false;
+                return true;
+            }
+            return false;
+        }
+
+        // added, changed or reordered figures, possibly a whole batch of them
+        int right = Integer.MIN_VALUE;
+        int bottom = Integer.MIN_VALUE;
+        for (Figure f : e.getChangedFigures()) {
+            Rectangle b = f.getBounds();
+            right = Math.max(right, b.x + b.width);
+            bottom = Math.max(bottom, b.y + b.height);
+        }
+
+        if ((region.x + region.width >= extentRight && right < extentRight)
+                || (region.y + region.height >= extentBottom && bottom < extentBottom)) {
+            // a figure on the boundary may have shrunk
+            extentValid = false;
+            return true;
+        }
+        extentRight = Math.max(extentRight, right);
+        extentBottom = Math.max(extentBottom, bottom);
+
+        return extentRight != oldRight || extentBottom != oldBottom;
     }
 
     @Override
     public FigureHandle getHandle(int x, int y, MouseEvent e) {
-        for (FigureHandle fh : handles) {
-            if (fh.contains(x, y)) {
-                return fh;
+        // called on every mouse move, the index loop avoids an iterator per selected figure
+        for (List<FigureHandle> handles : selection.values()) {
+            for (int i = 0; i < handles.size(); i++) {
+                FigureHandle fh = handles.get(i);
+                if (fh.contains(x, y)) {
+                    return fh;
+                }
             }
         }
         return null;
@@ -291,6 +658,39 @@ public final class StdDrawView extends JComponent implements DrawView {
         return context;
     }
 
+    /**
+     * Read-only list of the figures selected at the time it was created. As long as the selection did not
+     * change since, contains is answered by the selection map instead of scanning the array.
+     */
+    private final class SelectionSnapshot extends AbstractList<Figure> implements RandomAccess {
+        /** Selected figures in the order of selection */
+        private final Figure[] figures;
+        /** Version of the selection the figures were taken from */
+        private final int version = selectionVersion;
+
+        SelectionSnapshot(Figure[] figures) {
+            this.figures = figures;
+        }
+
+        @Override
+        public Figure get(int index) {
+            return figures[index];
+        }
+
+        @Override
+        public int size() {
+            return figures.length;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (version == selectionVersion) {
+                return selection.containsKey(o);
+            }
+            return super.contains(o);
+        }
+    }
+
     /**
      * Handles all mouse and keyboard events for the StdDrawView.
      *
@@ -308,6 +708,19 @@ public final class StdDrawView extends JComponent implements DrawView {
         // suppressed from code.
         @Override
         public void keyPressed(KeyEvent e) {
+            model.beginUpdate();
+            try {
+                handleKey(e);
+            } finally {
+                model.endUpdate();
+            }
+        }
+
+        /**
+         * Deletes or moves the selection according to the key pressed.
+         * @param e the key event
+         */
+        private void handleKey(KeyEvent e) {
             // disable figure deletion and figure moving while mouse operations
             if (dragging > 0) {
                 return;
@@ -315,14 +728,14 @@ public final class StdDrawView extends JComponent implements DrawView {
 
             int code = e.getKeyCode();
             if (code == KeyEvent.VK_DELETE || code == KeyEvent.VK_BACK_SPACE) {
-                model.getDrawCommandHandler().beginScript();
-                for (Figure f : getSelection()) {
-                    model.getDrawCommandHandler().addCommand(new RemoveFigureCommand(model, f));
-                    model.removeFigure(f);
-                    // as a consequence, the figure is also removed from the selection
+                List<Figure> removed = getSelection();
+                if (!removed.isEmpty()) {
+                    model.getDrawCommandHandler().addCommand(new RemoveFiguresCommand(model, removed));
+                    for (Figure f : removed) {
+                        model.removeFigure(f);
+                        // as a consequence, the figure is also removed from the selection
+                    }
                 }
-                model.getDrawCommandHandler().endScript();
-                repaint();
             }
 
             int dx = 0;
@@ -344,12 +757,12 @@ public final class StdDrawView extends JComponent implements DrawView {
             }
             // move selection
             if (dx != 0 || dy != 0) {
-                model.getDrawCommandHandler().beginScript();
-                for (Figure figure : selection) {
+                for (Figure figure : selection.keySet()) {
                     figure.move(dx, dy);
-                    model.getDrawCommandHandler().addCommand(new MoveCommand(figure, dx, dy));
                 }
-                model.getDrawCommandHandler().endScript();
+                if (!selection.isEmpty()) {
+                    model.getDrawCommandHandler().addCommand(new MoveFiguresCommand(selection.keySet(), dx, dy));
+                }
             }
         }
 
@@ -367,6 +780,19 @@ public final class StdDrawView extends JComponent implements DrawView {
         // =============
         @Override
         public void mousePressed(MouseEvent e) {
+            model.beginUpdate();
+            try {
+                handleMousePressed(e);
+            } finally {
+                model.endUpdate();
+            }
+        }
+
+        /**
+         * Starts a mouse interaction or forwards an inter-click as drag.
+         * @param e the mouse event
+         */
+        private void handleMousePressed(MouseEvent e) {
             requestFocus();
 
             Point p = constrainPoint(new Point(e.getX(), e.getY()), 1);
@@ -375,6 +801,7 @@ public final class StdDrawView extends JComponent implements DrawView {
                 context.getTool().mouseDrag(p.x, p.y, e);
             } else if ((e.getModifiers() & InputEvent.BUTTON1_MASK) != 0) {
                 model.getDrawCommandHandler().beginScript();
+                scriptOpen = true;
                 context.getTool().mouseDown(p.x, p.y, e);
             }
             dragging++;
@@ -382,11 +809,25 @@ public final class StdDrawView extends JComponent implements DrawView {
 
         @Override
         public void mouseReleased(MouseEvent e) {
+            model.beginUpdate();
+            try {
+                handleMouseReleased(e);
+            } finally {
+                model.endUpdate();
+            }
+        }
+
+        /**
+         * Finishes a mouse interaction.
+         * @param e the mouse event
+         */
+        private void handleMouseReleased(MouseEvent e) {
             dragging--;
             Point p = constrainPoint(new Point(e.getX(), e.getY()), 2);
             if (dragging > 0) {
                 context.getTool().mouseDrag(p.x, p.y, e);
-            } else if ((e.getModifiers() & InputEvent.BUTTON1_MASK) != 0) {
+            } else if (scriptOpen) {
+                scriptOpen = false;
                 model.getDrawCommandHandler().endScript();
                 context.getTool().mouseUp(p.x, p.y, e);
             }
@@ -411,8 +852,14 @@ public final class StdDrawView extends JComponent implements DrawView {
         // ===================
         @Override
         public void mouseDragged(MouseEvent e) {
-            Point p = constrainPoint(new Point(e.getX(), e.getY()), 0);
-            context.getTool().mouseDrag(p.x, p.y, e);
+            // all changes of one drag step are reported as a single model event
+            model.beginUpdate();
+            try {
+                Point p = constrainPoint(new Point(e.getX(), e.getY()), 0);
+                context.getTool().mouseDrag(p.x, p.y, e);
+            } finally {
+                model.endUpdate();
+            }
             setCursor(context.getTool().getCursor());
         }
 
@@ -421,11 +868,10 @@ public final class StdDrawView extends JComponent implements DrawView {
             int x = e.getX();
             int y = e.getY();
 
-            for (FigureHandle h : handles) {
-                if (h.contains(x, y)) {
-                    StdDrawView.super.setCursor(h.getCursor());
-                    return;
-                }
+            FigureHandle h = getHandle(x, y, e);
+            if (h != null) {
+                StdDrawView.super.setCursor(h.getCursor());
+                return;
             }
             setCursor(context.getTool().getCursor());
         }
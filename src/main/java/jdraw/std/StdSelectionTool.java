@@ -8,10 +8,9 @@ package jdraw.std;
 import java.awt.Cursor;
 import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
@@ -50,6 +49,8 @@ public class StdSelectionTool implements DrawTool {
     private Figure lastSelectedFigure;
     /** handle that is currently used. */
     private FigureHandle currentHandle;
+    /** the rubber band of the previous drag event, see mouseDrag. */
+    private Rectangle lastBand;
     /** the rubber band during selection. */
     //private Rectangle selRectangle;
 
@@ -80,14 +81,13 @@ public class StdSelectionTool implements DrawTool {
      * @return whether the checked point is near an already selected figure.
      */
     private boolean isNearSelected(int x, int y) {
-        boolean result = false;
-        for (Figure f : view.getModel().getFigures()) {
-            if (view.getSelection().contains(f) && f.contains(x, y)) {
-                result = true;
-                break;
+        List<Figure> selection = view.getSelection();
+        for (Figure f : view.getModel().getFiguresAt(x, y)) {
+            if (selection.contains(f)) {
+                return true;
             }
         }
-        return result;
+        return false;
     }
 
     @Override
@@ -127,12 +127,9 @@ public class StdSelectionTool implements DrawTool {
 
             // 3. look for new figures (which are not already
             //    selected) and select them. Only one figure.
-            List<Figure> figures = new LinkedList<Figure>();
-            for (Figure f : view.getModel().getFigures()) {
-                figures.add(0, f);
-            }
-            for (Figure f : figures) {
-                if (f.contains(originalX, originalY) && !view.getSelection().contains(f)) {
+            List<Figure> selection = view.getSelection();
+            for (Figure f : view.getModel().getFiguresAt(originalX, originalY)) {
+                if (!selection.contains(f)) {
                     view.addToSelection(f);
                     lastSelectedFigure = f;
                     break;
@@ -146,11 +143,11 @@ public class StdSelectionTool implements DrawTool {
                 sy0 = originalY;
                 sx1 = originalX;
                 sy1 = originalY;
+                lastBand = new Rectangle(sx0, sy0, 0, 0);
 
                 selMode = true;
             }
         }
-        view.repaint();
     }
 
     /**
@@ -213,6 +210,65 @@ public class StdSelectionTool implements DrawTool {
         return x < 0 ? -x : x;
     }
 
+    /**
+     * Updates the selection after the rubber band changed from previous to current. Only figures which
+     * lie in the area covered by one of the bands but not by the other can enter or leave the band, so
+     * only these areas are searched.
+     * @param previous the rubber band whose figures are currently selected
+     * @param current the new rubber band
+     */
+    private void updateBandSelection(Rectangle previous, Rectangle current) {
+        for (Rectangle r : difference(previous, current)) {
+            for (Figure f : view.getModel().getFiguresIntersecting(r)) {
+                if (!contains(current, f.getBounds()) && contains(previous, f.getBounds())) {
+                    view.removeFromSelection(f);
+                }
+            }
+        }
+        for (Rectangle r : difference(current, previous)) {
+            for (Figure f : view.getModel().getFiguresIntersecting(r)) {
+                if (contains(current, f.getBounds()) && !contains(previous, f.getBounds())) {
+                    view.addToSelection(f);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the part of a which is not covered by b as up to four strips. The strips include the
+     * edges of b, so every figure having a point in a outside of b intersects one of them. If b has
+     * no area, a is returned as a whole.
+     * @param a the rectangle to subtract from
+     * @param b the rectangle to subtract
+     * @return the strips covering a without b
+     */
+    private static List<Rectangle> difference(Rectangle a, Rectangle b) {
+        int ax2 = a.x + a.width;
+        int ay2 = a.y + a.height;
+        int bx2 = b.x + b.width;
+        int by2 = b.y + b.height;
+        if (b.width <= 0 || b.height <= 0 || b.x > ax2 || a.x > bx2 || b.y > ay2 || a.y > by2) {
+            return Collections.singletonList(a);
+        }
+
+        List<Rectangle> strips = new ArrayList<>(4);
+        if (a.y < b.y) {
+            strips.add(new Rectangle(a.x, a.y, a.width, b.y - a.y));
+        }
+        if (ay2 > by2) {
+            strips.add(new Rectangle(a.x, by2, a.width, ay2 - by2));
+        }
+        int top = Math.max(a.y, b.y);
+        int height = Math.min(ay2, by2) - top;
+        if (a.x < b.x) {
+            strips.add(new Rectangle(a.x, top, b.x - a.x, height));
+        }
+        if (ax2 > bx2) {
+            strips.add(new Rectangle(bx2, top, ax2 - bx2, height));
+        }
+        return strips;
+    }
+
     @Override
     public void mouseDrag(int i, int j, java.awt.event.MouseEvent e) {
         if (currentHandle != null) {
@@ -222,35 +278,29 @@ public class StdSelectionTool implements DrawTool {
 
         if (selMode) {
             sx1 = e.getX(); sy1 = e.getY();
-            Set<Figure> sel = new HashSet<Figure>();
             Rectangle selRectangle =
                 new Rectangle(min(sx0, sx1), min(sy0, sy1), abs(sx1 - sx0), abs(sy1 - sy0));
 
-            for (Figure f : view.getModel().getFigures()) {
-                if (contains(selRectangle, f.getBounds())) {
-                    sel.add(f);
-                }
-            }
             view.setSelectionRubberBand(selRectangle);
-            view.clearSelection();
-            for (Figure f : sel) {
-                view.addToSelection(f);
-            }
-            view.repaint();
+            updateBandSelection(lastBand, selRectangle);
+            lastBand = selRectangle;
             return;
         }
 
         int k = i - tempX;
         int l = j - tempY;
 
-        for (Figure f : view.getSelection()) {
-            f.move(k, l);
-            view.getModel().getDrawCommandHandler().addCommand(new MoveCommand(f, k, l));
+        List<Figure> selection = view.getSelection();
+        if ((k != 0 || l != 0) && !selection.isEmpty()) {
+            for (Figure f : selection) {
+                f.move(k, l);
+            }
+            // merged with the previous steps of this drag by the command handler
+            view.getModel().getDrawCommandHandler().addCommand(new MoveFiguresCommand(selection, k, l));
         }
 
         tempX = i;
         tempY = j;
-        view.repaint();
     }
 
     @Override
@@ -263,18 +313,15 @@ public class StdSelectionTool implements DrawTool {
 
         if  (selMode) {
             selMode = false;
+            lastBand = null;
             view.setSelectionRubberBand(null);
-            view.repaint();
         }
 
         if (e.isShiftDown() && e.getX() == originalX && e.getY() == originalY)    {
-            for (Figure f : view.getModel().getFigures()) {
-                if (f.contains(originalX, originalY)) {
-                    if (view.getSelection().contains(f) && f != lastSelectedFigure) {
-                        view.removeFromSelection(f);
-                    }
-                    view.repaint();
-                    break;
+            Figure f = view.getModel().getFigureAt(originalX, originalY);
+            if (f != null) {
+                if (view.getSelection().contains(f) && f != lastSelectedFigure) {
+                    view.removeFromSelection(f);
                 }
             }
         }
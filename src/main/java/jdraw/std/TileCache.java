@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jdraw.framework.DrawModel;
+import jdraw.io.TileRenderer;
+
+/**
+ * Cache of the rendered figures of a model, split into square tiles. Painting an area only draws the
+ * figures of tiles which are not cached yet and copies all others, so repainting unchanged parts of the
+ * drawing costs a blit instead of drawing every figure again.
+ *
+ * Tiles are invalidated by area: the owner reports each region affected by a change of the model, and
+ * all tiles intersecting it are dropped and rendered again on their next use. The memory used by the
+ * tiles is bounded; the least recently painted tiles are dropped first.
+ *
+ * @author Pascal Thormeier
+ */
+final class TileCache {
+
+    /**
+     * Width and height of a tile in pixels
+     */
+    static final int TILE_SIZE = TileRenderer.TILE_SIZE;
+
+    /**
+     * Default maximum size of the cached pixels in bytes. Tiles are ARGB images of 260 x 260 pixels
+     * including the margin, about 264 KB each, so this holds 124 tiles: twice the 54 tiles a full HD
+     * view may touch.
+     */
+    static final long DEFAULT_MAX_BYTES = 32L << 20;
+
+    /**
+     * Pixels a figure may draw outside its bounds, see TileRenderer.MARGIN
+     */
+    private static final int MARGIN = TileRenderer.MARGIN;
+
+    /**
+     * The model whose figures are rendered
+     */
+    private final DrawModel model;
+
+    /**
+     * Maximum size of the cached pixels in bytes
+     */
+    private final long maxBytes;
+
+    /**
+     * Cached tiles by their packed tile coordinates, see key; in access order for the eviction
+     */
+    private final Map<Long, BufferedImage> tiles = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Size of the cached pixels in bytes
+     */
+    private long bytes;
+
+    /**
+     * Creates an empty cache.
+     * @param model the model to render
+     * @param maxBytes maximum size of the cached pixels in bytes; at least one tile is kept
+     */
+    TileCache(DrawModel model, long maxBytes) {
+        this.model = model;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Paints the figures within the given area, rendering the tiles which are not cached.
+     * @param g the graphics to paint on
+     * @param area the area to paint, usually the clip of g
+     */
+    void paint(Graphics g, Rectangle area) {
+        int tx1 = Math.floorDiv(area.x, TILE_SIZE);
+        int ty1 = Math.floorDiv(area.y, TILE_SIZE);
+        int tx2 = Math.floorDiv(area.x + area.width - 1, TILE_SIZE);
+        int ty2 = Math.floorDiv(area.y + area.height - 1, TILE_SIZE);
+        for (int ty = ty1; ty <= ty2; ty++) {
+            for (int tx = tx1; tx <= tx2; tx++) {
+                Long key = key(tx, ty);
+                BufferedImage tile = tiles.get(key);
+                if (tile == null) {
+                    Rectangle bounds = TileRenderer.tileBounds(tx, ty);
+                    tile = TileRenderer.renderTile(model.getFiguresIntersecting(bounds), tx, ty);
+                    put(key, tile);
+                }
+                int x = tx * TILE_SIZE;
+                int y = ty * TILE_SIZE;
+                g.drawImage(tile, x, y, x + TILE_SIZE, y + TILE_SIZE,
+                        MARGIN, MARGIN, MARGIN + TILE_SIZE, MARGIN + TILE_SIZE, null);
+            }
+        }
+    }
+
+    /**
+     * Renders the missing tiles of an area in parallel, so that painting the area afterwards only copies
+     * tiles. Must be called on the event dispatch thread, blocks until all tiles are rendered.
+     * @param area the area, e.g. the visible part of the view
+     * @param renderer the renderer to use
+     */
+    void warmUp(Rectangle area, TileRenderer renderer) {
+        if (area.isEmpty()) {
+            return;
+        }
+
+        int tx1 = Math.floorDiv(area.x, TILE_SIZE);
+        int ty1 = Math.floorDiv(area.y, TILE_SIZE);
+        int tx2 = Math.floorDiv(area.x + area.width - 1, TILE_SIZE);
+        int ty2 = Math.floorDiv(area.y + area.height - 1, TILE_SIZE);
+        int columns = tx2 - tx1 + 1;
+        boolean[] wanted = new boolean[columns * (ty2 - ty1 + 1)];
+        boolean missing = false;
+        for (int i = 0; i < wanted.length; i++) {
+            wanted[i] = !tiles.containsKey(key(tx1 + i % columns, ty1 + i / columns));
+            missing |= wanted[i];
+        }
+        if (!missing) {
+            return;
+        }
+
+        Rectangle bounds = TileRenderer.tileBounds(tx1, ty1);
+        bounds.add(TileRenderer.tileBounds(tx2, ty2));
+        BufferedImage[] rendered = renderer.renderTiles(model.getFiguresIntersecting(bounds),
+                tx1, ty1, tx2, ty2, wanted);
+        for (int i = 0; i < rendered.length; i++) {
+            if (rendered[i] != null) {
+                put(key(tx1 + i % columns, ty1 + i / columns), rendered[i]);
+            }
+        }
+    }
+
+    /**
+     * Drops all tiles intersecting the given area.
+     * @param area the changed area, null for the whole drawing
+     */
+    void invalidate(Rectangle area) {
+        if (area == null) {
+            tiles.clear();
+            bytes = 0;
+            return;
+        }
+
+        int tx1 = Math.floorDiv(area.x - MARGIN, TILE_SIZE);
+        int ty1 = Math.floorDiv(area.y - MARGIN, TILE_SIZE);
+        int tx2 = Math.floorDiv(area.x + area.width + MARGIN, TILE_SIZE);
+        int ty2 = Math.floorDiv(area.y + area.height + MARGIN, TILE_SIZE);
+        if ((long) (tx2 - tx1 + 1) * (ty2 - ty1 + 1) > tiles.size()) {
+            // large areas, e.g. moving a huge selection: check the few cached tiles instead
+            for (Iterator<Map.Entry<Long, BufferedImage>> it = tiles.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<Long, BufferedImage> entry = it.next();
+                long key = entry.getKey();
+                int tx = (int) (key >> 32);
+                int ty = (int) key;
+                if (tx >= tx1 && tx <= tx2 && ty >= ty1 && ty <= ty2) {
+                    bytes -= bytes(entry.getValue());
+                    it.remove();
+                }
+            }
+            return;
+        }
+
+        for (int ty = ty1; ty <= ty2; ty++) {
+            for (int tx = tx1; tx <= tx2; tx++) {
+                BufferedImage tile = tiles.remove(key(tx, ty));
+                if (tile != null) {
+                    bytes -= bytes(tile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a tile, dropping the least recently painted tiles if the cache gets too large.
+     */
+    private void put(Long key, BufferedImage tile) {
+        BufferedImage old = tiles.put(key, tile);
+        if (old != null) {
+            bytes -= bytes(old);
+        }
+        bytes += bytes(tile);
+
+        Iterator<BufferedImage> eldest = tiles.values().iterator();
+        while (bytes > maxBytes && tiles.size() > 1) {
+            bytes -= bytes(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @return size of the pixels of an ARGB tile in bytes
+     */
+    private static long bytes(BufferedImage tile) {
+        return 4L * tile.getWidth() * tile.getHeight();
+    }
+
+    /**
+     * @return number of cached tiles
+     */
+    int size() {
+        return tiles.size();
+    }
+
+    /**
+     * @return size of the cached pixels in bytes
+     */
+    long bytes() {
+        return bytes;
+    }
+
+    private static Long key(int tx, int ty) {
+        return ((long) tx << 32) | (ty & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2017 Fachhochschule Nordwestschweiz (FHNW)
+ * All Rights Reserved.
+ */
+
+package jdraw.std;
+
+import jdraw.figures.Group;
+import jdraw.framework.DrawCommand;
+
+/**
+ * Dissolves a group, i.e. detaches it from its parts once they are used on their own. Recorded together
+ * with the commands which replace the group by its parts in the model; undo attaches the group again.
+ *
+ * @author Pascal Thormeier
+ */
+public class UngroupCommand implements DrawCommand {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The dissolved group. */
+    private final Group group;
+
+    /**
+     * @param group the group, released by the caller
+     */
+    public UngroupCommand(Group group) {
+        this.group = group;
+    }
+
+    @Override
+    public void redo() {
+        group.releaseParts();
+    }
+
+    @Override
+    public void undo() {
+        group.listenToParts();
+    }
+}
@@ -7,6 +7,7 @@ import static org.junit.Assert.fail;
 
 import java.awt.Graphics;
 import java.awt.Point;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -20,6 +21,9 @@ import jdraw.framework.DrawModelEvent;
 import jdraw.framework.Figure;
 import jdraw.framework.FigureHandle;
 import jdraw.framework.FigureListener;
+import jdraw.std.AddFiguresCommand;
+import jdraw.std.RemoveFiguresCommand;
+import jdraw.std.StdContext;
 import jdraw.std.StdDrawModel;
 
 public class DrawModelTest {
@@ -281,4 +285,72 @@ public class DrawModelTest {
         );
     }
 
+    @Test
+    public void testIndexOf() {
+        List<Figure> figures = new LinkedList<>();
+        for (int i = 0; i < 10; i++) {
+            Figure g = new TestFigure();
+            figures.add(g);
+            m.addFigure(g);
+        }
+        m.setFigureIndex(figures.get(9), 2);
+        figures.add(2, figures.remove(9));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, m.indexOf(figures.get(i)));
+        }
+        assertEquals(-1, m.indexOf(f));
+
+        List<Figure> query = new LinkedList<>();
+        query.add(figures.get(7));
+        query.add(f);
+        query.add(figures.get(2));
+        int[] indices = m.indicesOf(query);
+        assertEquals(7, indices[0]);
+        assertEquals(-1, indices[1]);
+        assertEquals(2, indices[2]);
+    }
+
+    @Test
+    public void testUndoRemoveFigures() {
+        List<Figure> figures = new LinkedList<>();
+        for (int i = 0; i < 10; i++) {
+            Figure g = new TestFigure();
+            figures.add(g);
+            m.addFigure(g);
+        }
+
+        List<Figure> removed = new LinkedList<>();
+        removed.add(figures.get(8));
+        removed.add(figures.get(0));
+        removed.add(figures.get(4));
+        removed.add(figures.get(9));
+        m.getDrawCommandHandler().addCommand(new RemoveFiguresCommand(m, removed));
+        removed.forEach(m::removeFigure);
+        m.getDrawCommandHandler().undo();
+
+        List<Figure> actual = new LinkedList<>();
+        m.getFigures().forEach(actual::add);
+        assertEquals("figures must be restored at their original positions", figures, actual);
+    }
+
+    @Test
+    public void testNewDrawingClearsHistory() {
+        for (int i = 0; i < 5; i++) {
+            Figure g = new TestFigure();
+            m.addFigure(g);
+            m.getDrawCommandHandler().addCommand(new AddFiguresCommand(m, Collections.singletonList(g)));
+        }
+        assertTrue(m.getDrawCommandHandler().undoPossible());
+
+        StdContext.newDrawing(m);
+        assertFalse("the figures must be removed", m.getFigures().iterator().hasNext());
+        assertFalse("commands of the old drawing must not be undone", m.getDrawCommandHandler().undoPossible());
+        assertFalse(m.getDrawCommandHandler().redoPossible());
+
+        m.addFigure(f);
+        assertFalse(m.getDrawCommandHandler().undoPossible());
+        assertEquals(f, m.getFigures().iterator().next());
+    }
+
 }
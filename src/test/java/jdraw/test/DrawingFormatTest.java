@@ -0,0 +1,187 @@
+package jdraw.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jdraw.figures.Ellipse;
+import jdraw.figures.Group;
+import jdraw.figures.Line;
+import jdraw.figures.Rect;
+import jdraw.framework.Figure;
+import jdraw.framework.FigureGroup;
+import jdraw.io.DrawingFormat;
+
+public class DrawingFormatTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("jdraw", DrawingFormat.EXTENSION);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private List<Figure> read() throws IOException {
+        List<Figure> figures = new ArrayList<>();
+        DrawingFormat.read(file, figures::add);
+        return figures;
+    }
+
+    private static void assertSameFigure(Figure expected, Figure actual) {
+        assertSame(expected.getClass(), actual.getClass());
+        assertEquals(expected.getBounds(), actual.getBounds());
+        if (expected instanceof FigureGroup) {
+            Iterator<Figure> parts = ((FigureGroup) actual).getFigureParts().iterator();
+            for (Figure part : ((FigureGroup) expected).getFigureParts()) {
+                assertTrue("missing part", parts.hasNext());
+                assertSameFigure(part, parts.next());
+            }
+            assertFalse("additional part", parts.hasNext());
+        }
+    }
+
+    private static void assertSameFigures(List<Figure> expected, List<Figure> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSameFigure(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        LinkedList<Figure> parts = new LinkedList<>();
+        parts.add(new Rect(-5, 7, 3, 4));
+        parts.add(new Line(100, 100, 50, 20));
+        LinkedList<Figure> outer = new LinkedList<>();
+        outer.add(new Group(parts));
+        outer.add(new Ellipse(1000000, -1000000, 10, 10));
+
+        List<Figure> figures = new ArrayList<>();
+        figures.add(new Rect(10, 20, 30, 40));
+        figures.add(new Group(outer));
+        figures.add(new Ellipse(0, 0, 0, 0));
+        figures.add(new Line(Integer.MAX_VALUE / 2, 0, Integer.MIN_VALUE / 2, 0));
+
+        DrawingFormat.write(file, figures);
+        assertSameFigures(figures, read());
+    }
+
+    @Test
+    public void testLargeDrawing() throws IOException {
+        Random random = new Random(42);
+        List<Figure> figures = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            figures.add(new Rect(random.nextInt(10000), random.nextInt(10000), random.nextInt(100), random.nextInt(100)));
+        }
+
+        DrawingFormat.write(file, figures);
+        assertTrue("coordinates are not packed", Files.size(file) < 8L * figures.size());
+        assertSameFigures(figures, read());
+    }
+
+    @Test
+    public void testUnknownFigureType() throws IOException {
+        List<Figure> figures = new ArrayList<>();
+        figures.add(new Rect(1, 2, 3, 4));
+        figures.add(new LabeledRect(5, 6, 7, 8, "label"));
+        figures.add(new Rect(9, 10, 11, 12));
+
+        DrawingFormat.write(file, figures);
+        List<Figure> loaded = read();
+        assertSameFigures(figures, loaded);
+        assertEquals("label", ((LabeledRect) loaded.get(1)).label);
+    }
+
+    @Test
+    public void testLegacyFile() throws IOException {
+        LinkedList<Figure> figures = new LinkedList<>();
+        figures.add(new Rect(10, 20, 30, 40));
+        figures.add(new Line(1, 2, 3, 4));
+        try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(file))) {
+            out.writeObject(figures);
+        }
+
+        assertSameFigures(figures, read());
+    }
+
+    @Test
+    public void testInvalidFile() throws IOException {
+        Files.write(file, new byte[] {1, 2, 3});
+        try {
+            read();
+            fail("IOException expected");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCorruptHeader() throws IOException {
+        // negative number of types
+        assertCorrupt(0x4A, 0x44, 0x52, 0x57, 1, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F);
+        // negative version
+        assertCorrupt(0x4A, 0x44, 0x52, 0x57, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F, 0);
+        // a type table with one entry, followed by the figure type -1
+        assertCorrupt(0x4A, 0x44, 0x52, 0x57, 1, 1, 1, 'R', 0xFF, 0xFF, 0xFF, 0xFF, 0x0F);
+        // a type name of 2 GB in a file of a few bytes
+        assertCorrupt(0x4A, 0x44, 0x52, 0x57, 1, 1, 0xFF, 0xFF, 0xFF, 0xFF, 0x07, 'R');
+    }
+
+    private void assertCorrupt(int... data) throws IOException {
+        byte[] bytes = new byte[data.length];
+        for (int i = 0; i < data.length; i++) {
+            bytes[i] = (byte) data[i];
+        }
+        Files.write(file, bytes);
+        try {
+            read();
+            fail("IOException expected");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedFile() throws IOException {
+        List<Figure> figures = new ArrayList<>();
+        figures.add(new Rect(10, 20, 30, 40));
+        DrawingFormat.write(file, figures);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 2));
+        read();
+    }
+
+    /**
+     * Figure without a codec of its own.
+     */
+    private static class LabeledRect extends Rect {
+        private final String label;
+
+        LabeledRect(int x, int y, int w, int h, String label) {
+            super(x, y, w, h);
+            this.label = label;
+        }
+    }
+}
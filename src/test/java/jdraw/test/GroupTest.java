@@ -0,0 +1,195 @@
+package jdraw.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jdraw.figures.Group;
+import jdraw.figures.Line;
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.Figure;
+import jdraw.std.StdDrawModel;
+import jdraw.std.UngroupCommand;
+
+public class GroupTest {
+
+    private Rect rect;
+    private Line line;
+    private Group inner;
+    private Group outer;
+
+    @Before
+    public void setUp() {
+        rect = new Rect(10, 10, 20, 20);
+        line = new Line(100, 50, 120, 80);
+        inner = group(rect, line);
+        outer = group(inner, new Rect(0, 200, 5, 5));
+    }
+
+    private static Group group(Figure... parts) {
+        List<Figure> list = new LinkedList<>();
+        for (Figure part : parts) {
+            list.add(part);
+        }
+        return new Group(list);
+    }
+
+    @Test
+    public void testBoundsAreUnionOfParts() {
+        assertEquals(new Rectangle(10, 10, 110, 70), inner.getBounds());
+        assertEquals(new Rectangle(0, 10, 120, 195), outer.getBounds());
+    }
+
+    @Test
+    public void testContainsDescendsIntoParts() {
+        assertTrue(outer.contains(20, 20));
+        assertTrue(outer.contains(2, 202));
+        // inside the bounds of the groups but between the parts
+        assertFalse(outer.contains(60, 20));
+        assertFalse(outer.contains(20, 100));
+
+        outer.move(100, 0);
+        assertFalse(outer.contains(20, 20));
+        assertTrue(outer.contains(120, 20));
+
+        rect.setBounds(new Point(200, 300), new Point(210, 310));
+        assertFalse(outer.contains(120, 20));
+        assertTrue(outer.contains(205, 305));
+    }
+
+    @Test
+    public void testPartsAt() {
+        Rect front = new Rect(15, 15, 10, 10);
+        Group g = group(outer, front);
+
+        assertEquals(Arrays.<Figure>asList(front, outer), g.getPartsAt(20, 20));
+        assertEquals(Arrays.asList(outer), g.getPartsAt(12, 12));
+        assertEquals(Arrays.asList(rect), inner.getPartsAt(12, 12));
+        assertTrue(g.getPartsAt(60, 20).isEmpty());
+    }
+
+    @Test
+    public void testDrawsOnlyVisibleParts() {
+        int[] drawn = new int[1];
+        List<Figure> parts = new LinkedList<>();
+        for (int i = 0; i < 1000; i++) {
+            parts.add(new Rect(10 * i, 10 * (i % 7), 5, 5) {
+                @Override
+                public void draw(Graphics g) {
+                    drawn[0]++;
+                    super.draw(g);
+                }
+            });
+        }
+        Group g = new Group(parts);
+
+        BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics graphics = image.createGraphics();
+        graphics.setClip(200, 0, 30, 100);
+        g.draw(graphics);
+        // only the parts 20 to 23 intersect the clip
+        assertEquals(4, drawn[0]);
+
+        drawn[0] = 0;
+        g.move(-1000, 0);
+        g.draw(graphics);
+        assertEquals(4, drawn[0]);
+
+        drawn[0] = 0;
+        graphics.setClip(null);
+        g.draw(graphics);
+        assertEquals(1000, drawn[0]);
+        graphics.dispose();
+    }
+
+    @Test
+    public void testNestedChangesNotifyModelOnce() {
+        DrawModel model = new StdDrawModel();
+        model.addFigure(outer);
+        List<DrawModelEvent> events = new ArrayList<>();
+        model.addModelChangeListener(events::add);
+
+        outer.move(10, 0);
+        assertEquals(1, events.size());
+        assertSame(outer, events.get(0).getFigure());
+        assertEquals(DrawModelEvent.Type.FIGURE_CHANGED, events.get(0).getType());
+        assertEquals(new Rectangle(0, 10, 130, 195), events.get(0).getRegion());
+
+        events.clear();
+        rect.setBounds(new Point(300, 10), new Point(310, 20));
+        assertEquals(1, events.size());
+        assertSame(outer, events.get(0).getFigure());
+        assertEquals(new Rectangle(10, 10, 300, 195), events.get(0).getRegion());
+    }
+
+    @Test
+    public void testBoundsFollowChangedParts() {
+        outer.getBounds();
+
+        rect.setBounds(new Point(-10, -20), new Point(0, 0));
+        assertEquals(new Rectangle(-10, -20, 130, 100), inner.getBounds());
+        assertEquals(new Rectangle(-10, -20, 130, 225), outer.getBounds());
+
+        line.move(100, 0);
+        assertEquals(new Rectangle(-10, -20, 230, 225), outer.getBounds());
+    }
+
+    @Test
+    public void testBoundsFollowMovedGroup() {
+        outer.getBounds();
+
+        outer.move(5, -5);
+        assertEquals(new Rectangle(15, 5, 110, 70), inner.getBounds());
+        assertEquals(new Rectangle(5, 5, 120, 195), outer.getBounds());
+
+        Rectangle rv = new Rectangle();
+        assertEquals(outer.getBounds(), outer.getBounds(rv));
+        rv.translate(1000, 1000);
+        assertEquals(new Rectangle(5, 5, 120, 195), outer.getBounds());
+    }
+
+    @Test
+    public void testUngroupedPartsDoNotNotifyGroup() {
+        DrawModel model = new StdDrawModel();
+        model.addFigure(inner);
+        List<DrawModelEvent> events = new ArrayList<>();
+        model.addModelChangeListener(events::add);
+
+        // ungroup as the Ungroup action does
+        model.addFigure(rect);
+        model.addFigure(line);
+        model.removeFigure(inner);
+        UngroupCommand ungroup = new UngroupCommand(inner);
+        inner.releaseParts();
+        events.clear();
+
+        int[] notified = new int[1];
+        inner.addFigureListener(e -> notified[0]++);
+        rect.move(0, 100);
+        assertEquals(0, notified[0]);
+        assertEquals(1, events.size());
+        assertSame(rect, events.get(0).getFigure());
+
+        // undo attaches the group again, with bounds including the moved part
+        ungroup.undo();
+        assertEquals(new Rectangle(10, 50, 110, 80), inner.getBounds());
+        line.move(10, 0);
+        assertEquals(1, notified[0]);
+        assertEquals(new Rectangle(10, 50, 120, 80), inner.getBounds());
+    }
+}
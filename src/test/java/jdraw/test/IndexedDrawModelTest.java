@@ -0,0 +1,216 @@
+package jdraw.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import jdraw.figures.Rect;
+import jdraw.framework.DrawCommand;
+import jdraw.framework.DrawModel;
+import jdraw.framework.DrawModelEvent;
+import jdraw.framework.Figure;
+import jdraw.std.ClearCommand;
+import jdraw.std.IndexedDrawModel;
+
+public class IndexedDrawModelTest extends DrawModelTest {
+
+    @Override
+    protected DrawModel createDrawModel() {
+        return new IndexedDrawModel();
+    }
+
+    @Test
+    public void testSetFigureIndexRandom() {
+        DrawModel m = createDrawModel();
+        List<Figure> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Figure f = new TestFigure();
+            expected.add(f);
+            m.addFigure(f);
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            Figure f = expected.get(random.nextInt(expected.size()));
+            int index = random.nextInt(expected.size());
+            expected.remove(f);
+            expected.add(index, f);
+            m.setFigureIndex(f, index);
+
+            if (i % 10 == 0) {
+                Figure removed = expected.remove(random.nextInt(expected.size()));
+                m.removeFigure(removed);
+                Figure added = new TestFigure();
+                expected.add(added);
+                m.addFigure(added);
+            }
+        }
+
+        List<Figure> actual = new ArrayList<>();
+        m.getFigures().forEach(actual::add);
+        assertEquals("order of figures must match", expected, actual);
+    }
+
+    @Test
+    public void testFigureSnapshot() {
+        DrawModel m = createDrawModel();
+        List<Figure> current = new ArrayList<>();
+        List<List<Figure>> expected = new ArrayList<>();
+        List<Iterable<Figure>> snapshots = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 3000; i++) {
+            int op = random.nextInt(10);
+            if (op < 4 || current.size() < 2) {
+                Figure f = new TestFigure();
+                current.add(f);
+                m.addFigure(f);
+            } else if (op < 7) {
+                Figure f = current.get(random.nextInt(current.size()));
+                int index = random.nextInt(current.size());
+                current.remove(f);
+                current.add(index, f);
+                m.setFigureIndex(f, index);
+            } else {
+                m.removeFigure(current.remove(random.nextInt(current.size())));
+            }
+
+            if (i % 100 == 0) {
+                expected.add(new ArrayList<>(current));
+                snapshots.add(m.getFigureSnapshot());
+            }
+        }
+        m.removeAllFigures();
+
+        for (int i = 0; i < snapshots.size(); i++) {
+            List<Figure> actual = new ArrayList<>();
+            snapshots.get(i).forEach(actual::add);
+            assertEquals("snapshot " + i + " must not change", expected.get(i), actual);
+        }
+    }
+
+    @Test
+    public void testUndoClear() {
+        DrawModel m = createDrawModel();
+        List<Figure> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Figure f = new Rect(i, i, 10, 10);
+            expected.add(f);
+            m.addFigure(f);
+        }
+        m.setFigureIndex(expected.get(99), 0);
+        expected.add(0, expected.remove(99));
+
+        DrawCommand cmd = new ClearCommand(m);
+        m.removeAllFigures();
+        m.getDrawCommandHandler().addCommand(cmd);
+        m.getDrawCommandHandler().undo();
+
+        List<Figure> actual = new ArrayList<>();
+        m.getFigures().forEach(actual::add);
+        assertEquals("order of figures must be restored", expected, actual);
+        assertEquals("spatial index must be restored", new Rectangle(55, 55, 10, 10), m.getFigureAt(55, 55).getBounds());
+    }
+
+    @Test
+    public void testSetFigureIndexToFront() {
+        DrawModel m = createDrawModel();
+        List<Figure> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Figure f = new TestFigure();
+            expected.add(f);
+            m.addFigure(f);
+        }
+
+        // repeatedly moving into the same gap exhausts the key space between two neighbours
+        for (int i = 0; i < 100; i++) {
+            Figure f = expected.get(99);
+            expected.remove(99);
+            expected.add(1, f);
+            m.setFigureIndex(f, 1);
+        }
+
+        List<Figure> actual = new ArrayList<>();
+        m.getFigures().forEach(actual::add);
+        assertEquals("order of figures must match", expected, actual);
+    }
+
+    @Test
+    public void testSpatialQueries() {
+        DrawModel m = createDrawModel();
+        List<Figure> all = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            Figure f = new Rect(random.nextInt(1000), random.nextInt(1000), random.nextInt(50), random.nextInt(50));
+            all.add(f);
+            m.addFigure(f);
+        }
+
+        for (int i = 0; i < 500; i++) {
+            all.get(random.nextInt(all.size())).move(random.nextInt(100) - 50, random.nextInt(100) - 50);
+            if (i % 5 == 0) {
+                m.removeFigure(all.remove(random.nextInt(all.size())));
+            }
+        }
+
+        for (int i = 0; i < 50; i++) {
+            Rectangle r = new Rectangle(random.nextInt(1000), random.nextInt(1000), random.nextInt(200), random.nextInt(200));
+            List<Figure> expected = new ArrayList<>();
+            for (Figure f : m.getFigures()) {
+                Rectangle b = f.getBounds();
+                if (b.x <= r.x + r.width && r.x <= b.x + b.width && b.y <= r.y + r.height && r.y <= b.y + b.height) {
+                    expected.add(f);
+                }
+            }
+            assertEquals("figures intersecting " + r, expected, m.getFiguresIntersecting(r));
+
+            int x = random.nextInt(1000);
+            int y = random.nextInt(1000);
+            Figure top = null;
+            for (Figure f : m.getFigures()) {
+                if (f.contains(x, y)) {
+                    top = f;
+                }
+            }
+            assertEquals("top-most figure at " + x + "/" + y, top, m.getFigureAt(x, y));
+        }
+    }
+
+    @Test
+    public void testBatchedNotification() {
+        DrawModel m = createDrawModel();
+        Figure f1 = new Rect(0, 0, 10, 10);
+        Figure f2 = new Rect(100, 100, 10, 10);
+        m.addFigure(f1);
+        m.addFigure(f2);
+
+        List<DrawModelEvent> events = new ArrayList<>();
+        m.addModelChangeListener(events::add);
+
+        m.beginUpdate();
+        f1.move(1, 1);
+        f2.move(1, 1);
+        f1.move(1, 1);
+        assertEquals("changes must not be reported during a batch", 0, events.size());
+        m.endUpdate();
+
+        assertEquals("a batch must be reported as one event", 1, events.size());
+        DrawModelEvent e = events.get(0);
+        assertEquals(DrawModelEvent.Type.DRAWING_CHANGED, e.getType());
+        assertEquals(2, e.getChangedFigures().size());
+        assertEquals(new Rectangle(0, 0, 111, 111), e.getRegion());
+
+        events.clear();
+        m.beginUpdate();
+        f2.move(1, 1);
+        m.endUpdate();
+        assertEquals(1, events.size());
+        assertEquals("a batch with a single figure is reported as usual",
+                DrawModelEvent.Type.FIGURE_CHANGED, events.get(0).getType());
+        assertEquals(f2, events.get(0).getFigure());
+    }
+}
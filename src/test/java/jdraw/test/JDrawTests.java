@@ -6,7 +6,14 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
     DrawModelTest.class,
-    RectangleTest.class
+    DrawingFormatTest.class,
+    GroupTest.class,
+    IndexedDrawModelTest.class,
+    RectangleTest.class,
+    SnapGridTest.class,
+    StdDrawCommandHandlerTest.class,
+    TileCacheTest.class,
+    TileRendererTest.class
 })
 public class JDrawTests {
 }
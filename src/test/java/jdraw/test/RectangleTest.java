@@ -2,8 +2,11 @@ package jdraw.test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -11,6 +14,7 @@ import org.junit.Test;
 import jdraw.figures.Rect;
 import jdraw.framework.Figure;
 import jdraw.framework.FigureEvent;
+import jdraw.framework.FigureHandle;
 import jdraw.framework.FigureListener;
 
 public class RectangleTest {
@@ -80,6 +84,78 @@ public class RectangleTest {
         assertEquals("Figures must both be at position y=20", 20, f1.getBounds().y);
     }
 
+    /**
+     * @return the bean measuring the allocations of a thread, null if the JVM does not support it
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        java.lang.management.ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
+        if (!(mxBean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) mxBean;
+        if (!bean.isThreadAllocatedMemorySupported() || !bean.isThreadAllocatedMemoryEnabled()) {
+            return null;
+        }
+        return bean;
+    }
+
+    @Test
+    final public void testMoveDoesNotAllocate() {
+        com.sun.management.ThreadMXBean bean = allocationBean();
+        assumeTrue("the JVM does not count the allocations of threads", bean != null);
+
+        f.addFigureListener(new TestListener());
+        f.addFigureListener(new TestListener());
+        long id = Thread.currentThread().getId();
+        for (int i = 0; i < 20000; i++) {
+            f.move(1, -1);
+        }
+
+        long before = bean.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 20000; i++) {
+            f.move(1, -1);
+        }
+        long after = bean.getThreadAllocatedBytes(id);
+
+        // allow for the measurement itself, but not for a single allocation per move
+        assertTrue("move must not allocate, allocated " + (after - before) + " bytes", after - before < 1024);
+    }
+
+    @Test
+    final public void testHandlesDoNotAllocate() {
+        com.sun.management.ThreadMXBean bean = allocationBean();
+        assumeTrue("the JVM does not count the allocations of threads", bean != null);
+
+        int[] locations = new int[16];
+        List<FigureHandle> handles = f.getHandles();
+        assertEquals(8, f.getHandleLocations(locations));
+        for (int i = 0; i < handles.size(); i++) {
+            assertEquals(handles.get(i).getLocation(), new Point(locations[2 * i], locations[2 * i + 1]));
+        }
+        assertTrue("handles must be reused", handles == f.getHandles());
+
+        int hits = 0;
+        long id = Thread.currentThread().getId();
+        for (int round = 0; round < 2; round++) {
+            long before = bean.getThreadAllocatedBytes(id);
+            for (int i = 0; i < 20000; i++) {
+                f.getHandleLocations(locations);
+                for (int k = 0; k < handles.size(); k++) {
+                    if (handles.get(k).contains(i % 30, 0)) {
+                        hits++;
+                    }
+                }
+            }
+            long after = bean.getThreadAllocatedBytes(id);
+
+            // the first round warms up, the second must not allocate
+            if (round == 1) {
+                assertTrue("handles must not allocate, allocated " + (after - before) + " bytes", after - before < 1024);
+            }
+        }
+        assertTrue(hits > 0);
+    }
+
     class TestListener implements FigureListener {
         @Override
         public void figureChanged(FigureEvent e) {
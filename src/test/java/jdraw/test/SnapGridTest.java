@@ -0,0 +1,147 @@
+package jdraw.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jdraw.figures.Ellipse;
+import jdraw.figures.Group;
+import jdraw.figures.Line;
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModel;
+import jdraw.framework.Figure;
+import jdraw.grid.SmartSnapGrid;
+import jdraw.grid.SnapGrid;
+import jdraw.std.IndexedDrawModel;
+import jdraw.std.StdDrawView;
+
+public class SnapGridTest {
+
+    private DrawModel model;
+    private SnapGrid grid;
+
+    @Before
+    public void setUp() {
+        model = new IndexedDrawModel();
+        model.addFigure(new Rect(100, 100, 40, 20));
+        grid = new SnapGrid(new StdDrawView(model));
+        grid.activate();
+    }
+
+    @Test
+    public void testSnapsToNearestHandle() {
+        // north west (100, 100) and north (120, 100) are both within the radius
+        assertEquals(new Point(120, 100), grid.constrainPoint(new Point(117, 104)));
+        assertEquals(new Point(100, 100), grid.constrainPoint(new Point(105, 96)));
+
+        Point far = new Point(300, 300);
+        assertSame(far, grid.constrainPoint(far));
+    }
+
+    @Test
+    public void testFollowsModelChanges() {
+        Figure added = new Rect(500, 500, 10, 10);
+        model.addFigure(added);
+        // the figure which just changed is being edited and does not attract the mouse
+        assertEquals(new Point(512, 508), grid.constrainPoint(new Point(512, 508)));
+
+        editOtherFigure();
+        assertEquals(new Point(510, 510), grid.constrainPoint(new Point(512, 508)));
+
+        added.move(100, 0);
+        editOtherFigure();
+        assertEquals(new Point(512, 508), grid.constrainPoint(new Point(512, 508)));
+        assertEquals(new Point(610, 510), grid.constrainPoint(new Point(612, 508)));
+
+        model.removeFigure(added);
+        assertEquals(new Point(612, 508), grid.constrainPoint(new Point(612, 508)));
+
+        model.removeAllFigures();
+        assertEquals(new Point(101, 101), grid.constrainPoint(new Point(101, 101)));
+    }
+
+    @Test
+    public void testSmartSnapChoosesNearestTarget() {
+        model.addFigure(new Line(0, 300, 100, 300));
+        SmartSnapGrid smart = new SmartSnapGrid(new StdDrawView(model));
+        // the test must not depend on the speed of the machine
+        smart.setBudget(Long.MAX_VALUE);
+        smart.activate();
+        editOtherFigure();
+
+        // center of the rectangle
+        assertEquals(new Point(120, 110), smart.constrainPoint(new Point(121, 108)));
+        // top edge of the rectangle, nearer than the handles at (120, 100) and (140, 100)
+        assertEquals(new Point(130, 100), smart.constrainPoint(new Point(130, 97)));
+        // on the line
+        assertEquals(new Point(30, 300), smart.constrainPoint(new Point(30, 306)));
+        // nothing within reach, aligned with the east handle and the center of the rectangle
+        assertEquals(new Point(300, 110), smart.constrainPoint(new Point(300, 112)));
+
+        Point far = new Point(1000, 1000);
+        assertSame(far, smart.constrainPoint(far));
+        smart.deactivate();
+    }
+
+    @Test
+    public void testSmartSnapFollowsOutlines() {
+        model.addFigure(new Ellipse(200, 200, 200, 100));
+        List<Figure> parts = new LinkedList<>();
+        parts.add(new Rect(500, 500, 40, 40));
+        parts.add(new Ellipse(600, 500, 40, 40));
+        model.addFigure(new Group(parts));
+        SmartSnapGrid smart = new SmartSnapGrid(new StdDrawView(model));
+        smart.setBudget(Long.MAX_VALUE);
+        smart.activate();
+        editOtherFigure();
+
+        // near the top of the bounds, but the ellipse is nearer than (250, 200)
+        Point p = smart.constrainPoint(new Point(250, 203));
+        double dx = (p.x - 300) / 100.0;
+        double dy = (p.y - 250) / 50.0;
+        assertEquals("on the ellipse: " + p, 1, dx * dx + dy * dy, 0.05);
+        assertTrue(p.distance(250, 203) < 5);
+
+        // between the parts of the group, next to its top edge
+        assertEquals(new Point(540, 503), smart.constrainPoint(new Point(545, 503)));
+        smart.deactivate();
+    }
+
+    @Test
+    public void testSmartSnapReportsFeedback() {
+        SmartSnapGrid smart = new SmartSnapGrid(new StdDrawView(model));
+        smart.setBudget(Long.MAX_VALUE);
+        smart.activate();
+        editOtherFigure();
+
+        smart.constrainPoint(new Point(121, 108));
+        assertEquals(new Point(120, 110), smart.getSnapTarget());
+        assertEquals(SmartSnapGrid.NO_GUIDE, smart.getGuideX());
+        assertEquals(SmartSnapGrid.NO_GUIDE, smart.getGuideY());
+
+        // aligned with the east handle and the center of the rectangle, horizontally only
+        smart.constrainPoint(new Point(300, 112));
+        assertNull(smart.getSnapTarget());
+        assertEquals(SmartSnapGrid.NO_GUIDE, smart.getGuideX());
+        assertEquals(110, smart.getGuideY());
+
+        smart.deactivate();
+        assertNull(smart.getSnapTarget());
+        assertEquals(SmartSnapGrid.NO_GUIDE, smart.getGuideY());
+    }
+
+    /**
+     * Adds a figure far away, which makes it the figure currently edited.
+     */
+    private void editOtherFigure() {
+        model.addFigure(new Rect(-1000, -1000, 1, 1));
+    }
+}
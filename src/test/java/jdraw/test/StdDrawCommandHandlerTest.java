@@ -0,0 +1,175 @@
+package jdraw.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jdraw.figures.Rect;
+import jdraw.framework.DrawCommand;
+import jdraw.framework.Figure;
+import jdraw.std.MoveCommand;
+import jdraw.std.MoveFiguresCommand;
+import jdraw.std.StdDrawCommandHandler;
+
+public class StdDrawCommandHandlerTest {
+
+    private StdDrawCommandHandler h;
+    private List<String> log;
+
+    @Before
+    public void setUp() {
+        h = new StdDrawCommandHandler();
+        log = new ArrayList<>();
+    }
+
+    @Test
+    public void testUndoRedo() {
+        assertFalse(h.undoPossible());
+        h.addCommand(new LogCommand("a"));
+        h.addCommand(new LogCommand("b"));
+        h.undo();
+        h.undo();
+        assertFalse(h.undoPossible());
+        h.redo();
+        assertEquals("[undo b, undo a, redo a]", log.toString());
+        assertTrue(h.redoPossible());
+
+        h.addCommand(new LogCommand("c"));
+        assertFalse("adding a command discards the redo history", h.redoPossible());
+    }
+
+    @Test
+    public void testNestedScripts() {
+        h.beginScript();
+        h.addCommand(new LogCommand("a"));
+        h.beginScript();
+        h.addCommand(new LogCommand("b"));
+        h.addCommand(new LogCommand("c"));
+        h.endScript();
+        assertFalse("undo must not be possible while a script is open", h.undoPossible());
+        h.addCommand(new LogCommand("d"));
+        h.endScript();
+
+        h.undo();
+        assertFalse("the outer script must be undone as a whole", h.undoPossible());
+        assertEquals("[undo d, undo c, undo b, undo a]", log.toString());
+        log.clear();
+        h.redo();
+        assertEquals("[redo a, redo b, redo c, redo d]", log.toString());
+    }
+
+    @Test
+    public void testMergeMoves() {
+        List<Figure> figures = new ArrayList<>();
+        figures.add(new Rect(0, 0, 10, 10));
+        figures.add(new Rect(20, 20, 10, 10));
+
+        h.beginScript();
+        for (int i = 0; i < 100; i++) {
+            figures.forEach(f -> f.move(1, 2));
+            h.addCommand(new MoveFiguresCommand(figures, 1, 2));
+        }
+        h.endScript();
+        assertTrue("moves of the same figures must be merged", h.getHistorySize() < 200);
+
+        h.undo();
+        assertEquals(new Rectangle(0, 0, 10, 10), figures.get(0).getBounds());
+        assertEquals(new Rectangle(20, 20, 10, 10), figures.get(1).getBounds());
+        h.redo();
+        assertEquals(new Rectangle(100, 200, 10, 10), figures.get(0).getBounds());
+    }
+
+    @Test
+    public void testMergeOnlyWithinScript() {
+        Figure f = new Rect(0, 0, 10, 10);
+        h.addCommand(new MoveCommand(f, 1, 1));
+        h.addCommand(new MoveCommand(f, 1, 1));
+        h.undo();
+        assertTrue("commands outside of scripts must not be merged", h.undoPossible());
+    }
+
+    @Test
+    public void testEmptyScript() {
+        h.beginScript();
+        h.endScript();
+        assertFalse("empty scripts must not be stored", h.undoPossible());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEndScriptWithoutBegin() {
+        h.endScript();
+    }
+
+    @Test
+    public void testMemoryBudget() {
+        h.setMemoryBudget(10000);
+        for (int i = 0; i < 1000; i++) {
+            h.addCommand(new LogCommand(Integer.toString(i), 1000));
+        }
+        assertTrue("history exceeds its budget", h.getHistorySize() <= 10000);
+
+        int undone = 0;
+        while (h.undoPossible()) {
+            h.undo();
+            undone++;
+        }
+        assertTrue("the most recent commands must be kept", undone > 0);
+        assertEquals("undo 999", log.get(0));
+        assertEquals("undo " + (1000 - undone), log.get(undone - 1));
+    }
+
+    @Test
+    public void testLargeCommandIsKept() {
+        h.setMemoryBudget(100);
+        h.addCommand(new LogCommand("a", 1000));
+        assertTrue(h.undoPossible());
+        h.addCommand(new LogCommand("b", 1000));
+        h.undo();
+        assertFalse(h.undoPossible());
+        assertEquals("[undo b]", log.toString());
+    }
+
+    @Test
+    public void testClearHistory() {
+        h.addCommand(new LogCommand("a"));
+        h.clearHistory();
+        assertFalse(h.undoPossible());
+        assertEquals(0, h.getHistorySize());
+    }
+
+    private class LogCommand implements DrawCommand {
+        private final String name;
+        private final long size;
+
+        LogCommand(String name) {
+            this(name, 32);
+        }
+
+        LogCommand(String name, long size) {
+            this.name = name;
+            this.size = size;
+        }
+
+        @Override
+        public void redo() {
+            log.add("redo " + name);
+        }
+
+        @Override
+        public void undo() {
+            log.add("undo " + name);
+        }
+
+        @Override
+        public long estimateSize() {
+            return size;
+        }
+    }
+}
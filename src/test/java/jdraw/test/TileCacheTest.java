@@ -0,0 +1,128 @@
+package jdraw.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jdraw.figures.Ellipse;
+import jdraw.figures.Line;
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModel;
+import jdraw.framework.Figure;
+import jdraw.std.IndexedDrawModel;
+import jdraw.std.StdDrawView;
+
+public class TileCacheTest {
+
+    private static final int WIDTH = 700;
+    private static final int HEIGHT = 600;
+
+    private DrawModel model;
+    private StdDrawView direct;
+    private StdDrawView cached;
+
+    @Before
+    public void setUp() {
+        model = new IndexedDrawModel();
+        for (int i = 0; i < 40; i++) {
+            model.addFigure(new Rect(17 * i, 13 * i, 60, 40));
+            model.addFigure(new Ellipse(600 - 15 * i, 11 * i, 30, 50));
+            model.addFigure(new Line(5 * i, 500, 700 - 9 * i, 20 * i));
+        }
+
+        direct = new StdDrawView(model);
+        direct.setTileCacheEnabled(false);
+        cached = new StdDrawView(model);
+    }
+
+    private static BufferedImage paint(StdDrawView view, int x, int y, int w, int h) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        Graphics g = image.createGraphics();
+        g.setClip(x, y, w, h);
+        view.paintComponent(g);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Compares a clipped paint of the cached view with a full paint of the direct view. Curves are drawn
+     * slightly differently next to the edge of a clip, so the direct view is not clipped.
+     */
+    private void assertSamePixels(int x, int y, int w, int h) {
+        BufferedImage expected = paint(direct, 0, 0, WIDTH, HEIGHT);
+        BufferedImage actual = paint(cached, x, y, w, h);
+        for (int py = y; py < y + h; py++) {
+            for (int px = x; px < x + w; px++) {
+                if (expected.getRGB(px, py) != actual.getRGB(px, py)) {
+                    assertEquals("pixel " + px + ", " + py, expected.getRGB(px, py), actual.getRGB(px, py));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPaintsLikeDirectDrawing() {
+        assertSamePixels(0, 0, WIDTH, HEIGHT);
+        assertSamePixels(250, 250, 20, 300);
+    }
+
+    @Test
+    public void testOverlayDoesNotRedrawFigures() {
+        int[] drawn = new int[1];
+        model.addFigure(new Rect(300, 300, 50, 50) {
+            @Override
+            public void draw(Graphics g) {
+                drawn[0]++;
+                super.draw(g);
+            }
+        });
+        paint(cached, 0, 0, WIDTH, HEIGHT);
+        assertEquals(1, drawn[0]);
+
+        // moving the rubber band over the figure only repaints the overlay
+        for (int i = 0; i < 10; i++) {
+            cached.setSelectionRubberBand(new Rectangle(250 + i, 250 + i, 150, 150));
+            paint(cached, 250 + i, 250 + i, 151, 151);
+        }
+        cached.setSelectionRubberBand(null);
+        paint(cached, 0, 0, WIDTH, HEIGHT);
+        assertEquals(1, drawn[0]);
+        assertSamePixels(0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void testWarmUp() {
+        cached.warmUpTileCache(new Rectangle(0, 0, WIDTH, HEIGHT));
+        assertSamePixels(0, 0, WIDTH, HEIGHT);
+
+        model.getFigures().iterator().next().move(200, 100);
+        cached.warmUpTileCache(new Rectangle(100, 100, 300, 200));
+        assertSamePixels(0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void testFollowsModelChanges() {
+        assertSamePixels(0, 0, WIDTH, HEIGHT);
+
+        Figure f = model.getFigures().iterator().next();
+        f.move(300, 200);
+        assertSamePixels(0, 0, WIDTH, HEIGHT);
+
+        f.setBounds(new Point(500, 10), new Point(690, 590));
+        model.setFigureIndex(f, 0);
+        assertSamePixels(0, 0, WIDTH, HEIGHT);
+
+        model.removeFigure(f);
+        assertSamePixels(0, 0, WIDTH, HEIGHT);
+
+        model.removeAllFigures();
+        model.addFigure(new Rect(255, 255, 2, 2));
+        assertSamePixels(0, 0, WIDTH, HEIGHT);
+    }
+}
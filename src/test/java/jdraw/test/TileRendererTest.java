@@ -0,0 +1,110 @@
+package jdraw.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jdraw.figures.Ellipse;
+import jdraw.figures.Group;
+import jdraw.figures.Line;
+import jdraw.figures.Rect;
+import jdraw.framework.DrawModel;
+import jdraw.framework.Figure;
+import jdraw.io.TileRenderer;
+import jdraw.std.IndexedDrawModel;
+
+public class TileRendererTest {
+
+    private DrawModel model;
+    private ForkJoinPool pool;
+    private TileRenderer renderer;
+
+    @Before
+    public void setUp() {
+        model = new IndexedDrawModel();
+        for (int i = 0; i < 60; i++) {
+            model.addFigure(new Rect(-100 + 17 * i, 13 * i, 60, 40));
+            model.addFigure(new Ellipse(900 - 15 * i, 11 * i - 50, 30, 50));
+            model.addFigure(new Line(5 * i, 700, 900 - 9 * i, 12 * i));
+        }
+        pool = new ForkJoinPool(4);
+        renderer = new TileRenderer(pool);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testRendersLikeDirectDrawing() {
+        assertRendersLikeDirectDrawing();
+    }
+
+    @Test
+    public void testRendersGroups() {
+        // groups compute their caches lazily, possibly on several workers at once
+        for (int i = 0; i < 20; i++) {
+            List<Figure> parts = new LinkedList<>();
+            for (int j = 0; j < 30; j++) {
+                List<Figure> nested = new LinkedList<>();
+                nested.add(new Rect(40 * i + 3 * j, 30 * j, 10, 8));
+                nested.add(new Ellipse(40 * i, 30 * j + 15, 25, 12));
+                parts.add(new Group(nested));
+            }
+            model.addFigure(new Group(parts));
+        }
+        assertRendersLikeDirectDrawing();
+    }
+
+    private void assertRendersLikeDirectDrawing() {
+        BufferedImage image = renderer.render(model);
+        Rectangle extent = TileRenderer.extent(model.getFigures());
+        assertEquals(extent.width, image.getWidth());
+        assertEquals(extent.height, image.getHeight());
+
+        BufferedImage expected = new BufferedImage(extent.width, extent.height, BufferedImage.TYPE_INT_ARGB);
+        Graphics g = expected.createGraphics();
+        g.translate(-extent.x, -extent.y);
+        for (Figure f : model.getFigures()) {
+            f.draw(g);
+        }
+        g.dispose();
+
+        for (int y = 0; y < extent.height; y++) {
+            for (int x = 0; x < extent.width; x++) {
+                if (expected.getRGB(x, y) != image.getRGB(x, y)) {
+                    assertEquals("pixel " + x + ", " + y, expected.getRGB(x, y), image.getRGB(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRendersWantedTilesOnly() {
+        boolean[] wanted = {true, false, false, true};
+        BufferedImage[] tiles = renderer.renderTiles(model.getFigures(), -1, 0, 0, 1, wanted);
+        assertEquals(4, tiles.length);
+        assertNotNull(tiles[0]);
+        assertNull(tiles[1]);
+        assertNull(tiles[2]);
+        assertNotNull(tiles[3]);
+        assertEquals(TileRenderer.TILE_SIZE + 2 * TileRenderer.MARGIN, tiles[3].getWidth());
+    }
+
+    @Test
+    public void testEmptyModel() {
+        assertNull(renderer.render(new IndexedDrawModel()));
+    }
+}